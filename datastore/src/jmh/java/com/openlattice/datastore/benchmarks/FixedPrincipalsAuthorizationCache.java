@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.benchmarks;
+
+import com.openlattice.authorization.AuthorizationManager;
+import com.openlattice.authorization.Permission;
+import com.openlattice.authorization.Principal;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.edm.type.PropertyType;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A {@link RequestAuthorizationCache} for the principals of a benchmark instead of those of a security context, which
+ * authorizes the same property types on every entity set. Permission checks still go through the cache to the
+ * {@link AuthorizationManager}.
+ */
+public class FixedPrincipalsAuthorizationCache extends RequestAuthorizationCache {
+    private final Set<Principal>          principals;
+    private final Map<UUID, PropertyType> propertyTypes;
+
+    public FixedPrincipalsAuthorizationCache(
+            AuthorizationManager authorizations,
+            Set<Principal> principals,
+            Map<UUID, PropertyType> propertyTypes ) {
+        super( authorizations, null );
+        this.principals = principals;
+        this.propertyTypes = propertyTypes;
+    }
+
+    @Override
+    protected Set<Principal> currentPrincipals() {
+        return principals;
+    }
+
+    @Override
+    public Map<UUID, PropertyType> getAuthorizedPropertyTypes( UUID entitySetId, EnumSet<Permission> permissions ) {
+        return propertyTypes;
+    }
+
+    @Override
+    public Map<UUID, Map<UUID, PropertyType>> getAuthorizedPropertiesOnEntitySets(
+            Set<UUID> entitySetIds,
+            EnumSet<Permission> permissions ) {
+        final var result = new HashMap<UUID, Map<UUID, PropertyType>>( entitySetIds.size() );
+        entitySetIds.forEach( entitySetId -> result.put( entitySetId, propertyTypes ) );
+        return result;
+    }
+}
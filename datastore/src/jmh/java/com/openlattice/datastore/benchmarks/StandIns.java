@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.benchmarks;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for the services behind the controllers, so that benchmarks measure the controller code and not
+ * Postgres, Hazelcast or Elasticsearch.
+ */
+public final class StandIns {
+    private StandIns() {
+    }
+
+    /**
+     * Implements an interface by answering the named methods with the given functions of their arguments and every
+     * other method with the default value of its return type.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T of( Class<T> type, Map<String, Function<Object[], Object>> answers ) {
+        return (T) Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[] { type }, ( proxy, method, args ) -> {
+            if ( method.getDeclaringClass() == Object.class ) {
+                switch ( method.getName() ) {
+                    case "equals":
+                        return proxy == args[ 0 ];
+                    case "hashCode":
+                        return System.identityHashCode( proxy );
+                    default:
+                        return type.getSimpleName() + " stand-in";
+                }
+            }
+
+            final var answer = answers.get( method.getName() );
+            if ( answer != null ) {
+                return answer.apply( args == null ? new Object[ 0 ] : args );
+            }
+            return defaultValue( method.getReturnType() );
+        } );
+    }
+
+    public static <T> T of( Class<T> type ) {
+        return of( type, Map.of() );
+    }
+
+    /**
+     * Sets a field that is normally injected by Spring.
+     */
+    public static void inject( Object target, String fieldName, Object value ) {
+        try {
+            final Field field = target.getClass().getDeclaredField( fieldName );
+            field.setAccessible( true );
+            field.set( target, value );
+        } catch ( NoSuchFieldException | IllegalAccessException e ) {
+            throw new IllegalStateException( "Unable to inject " + fieldName + " into " + target.getClass(), e );
+        }
+    }
+
+    private static Object defaultValue( Class<?> type ) {
+        if ( !type.isPrimitive() || type == void.class ) {
+            return null;
+        }
+        return Array.get( Array.newInstance( type, 1 ), 0 );
+    }
+}
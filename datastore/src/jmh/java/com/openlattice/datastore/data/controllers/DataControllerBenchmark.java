@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.data.controllers;
+
+import com.codahale.metrics.MetricRegistry;
+import com.dataloom.mappers.ObjectMappers;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.openlattice.auditing.AssociationAuditingManager;
+import com.openlattice.authorization.AclKey;
+import com.openlattice.authorization.AuthorizationManager;
+import com.openlattice.authorization.Permission;
+import com.openlattice.authorization.Principal;
+import com.openlattice.authorization.PrincipalType;
+import com.openlattice.data.DataGraphManager;
+import com.openlattice.data.EntityKeyIdService;
+import com.openlattice.data.UpdateType;
+import com.openlattice.data.WriteEvent;
+import com.openlattice.data.storage.EntityDatastore;
+import com.openlattice.datastore.benchmarks.FixedPrincipalsAuthorizationCache;
+import com.openlattice.datastore.benchmarks.StandIns;
+import com.openlattice.datastore.services.DataRequestMetrics;
+import com.openlattice.datastore.services.EntitySetCardinalityService;
+import com.openlattice.datastore.services.EntitySetManager;
+import com.openlattice.datastore.services.IdempotentWriteService;
+import com.openlattice.datastore.services.PipelinedEntityCreator;
+import com.openlattice.edm.type.PropertyType;
+import com.openlattice.organizations.roles.SecurePrincipalsManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Measures the work {@link DataController} does between receiving a write and getting its {@link WriteEvent} back:
+ * authorization, validation, bookkeeping and building audit events. Storage, authorization and auditing are in-memory
+ * stand-ins that answer right away.
+ */
+@State( Scope.Benchmark )
+public class DataControllerBenchmark {
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @Param( { "10", "1000" } )
+    public int entities;
+
+    @Param( { "10" } )
+    public int properties;
+
+    private final UUID entitySetId = UUID.randomUUID();
+
+    private DataController                    controller;
+    private List<Map<UUID, Set<Object>>>      newEntities;
+    private Map<UUID, Map<UUID, Set<Object>>> entityUpdates;
+
+    @Setup
+    public void setUp() {
+        final Map<UUID, PropertyType> propertyTypes = new HashMap<>();
+        for ( int i = 0; i < properties; i++ ) {
+            propertyTypes.put( UUID.randomUUID(), null );
+        }
+
+        newEntities = new ArrayList<>( entities );
+        entityUpdates = new HashMap<>( entities );
+        for ( int i = 0; i < entities; i++ ) {
+            final Map<UUID, Set<Object>> entity = new HashMap<>( properties );
+            propertyTypes.keySet().forEach( propertyTypeId -> entity.put( propertyTypeId, Set.of( "value" ) ) );
+            newEntities.add( entity );
+            entityUpdates.put( UUID.randomUUID(), entity );
+        }
+
+        final var hazelcast = StandIns.of(
+                HazelcastInstance.class,
+                Map.of( "getMap", args -> StandIns.of( IMap.class ) ) );
+        final var entitySetManager = StandIns.of(
+                EntitySetManager.class,
+                Map.of( "getPropertyTypesForEntitySet", args -> propertyTypes ) );
+        final var authorizations = StandIns.of(
+                AuthorizationManager.class,
+                Map.of( "authorize", args -> authorizeAll( args[ 0 ] ) ) );
+
+        controller = new DataController();
+        StandIns.inject( controller, "entitySetService", entitySetManager );
+        StandIns.inject( controller, "authz", authorizations );
+        StandIns.inject( controller, "requestAuthorizationCache", new FixedPrincipalsAuthorizationCache(
+                authorizations,
+                Set.of( new Principal( PrincipalType.USER, USER_ID.toString() ) ),
+                propertyTypes ) );
+        StandIns.inject( controller, "dgm", StandIns.of( DataGraphManager.class, Map.of(
+                "createEntities", args -> createEntities( (List<?>) args[ 1 ] ),
+                "mergeEntities", args -> new WriteEvent( System.currentTimeMillis(), ( (Map<?, ?>) args[ 1 ] ).size() )
+        ) ) );
+        StandIns.inject( controller, "auditingManager", StandIns.of(
+                AssociationAuditingManager.class,
+                Map.of( "recordEvents", args -> ( (List<?>) args[ 0 ] ).size() ) ) );
+        StandIns.inject( controller, "spm", StandIns.of(
+                SecurePrincipalsManager.class,
+                Map.of( "getCurrentUserId", args -> USER_ID ) ) );
+        StandIns.inject( controller, "pipelinedEntityCreator", new PipelinedEntityCreator(
+                StandIns.of( EntityKeyIdService.class ),
+                StandIns.of( EntityDatastore.class ),
+                MoreExecutors.newDirectExecutorService(),
+                PipelinedEntityCreator.DEFAULT_CHUNK_SIZE,
+                PipelinedEntityCreator.DEFAULT_PIPELINE_DEPTH ) );
+        StandIns.inject( controller, "idempotentWriteService", new IdempotentWriteService(
+                hazelcast,
+                ObjectMappers.newJsonMapper(),
+                IdempotentWriteService.DEFAULT_TTL_SECONDS,
+                IdempotentWriteService.DEFAULT_LOCK_WAIT_SECONDS,
+                IdempotentWriteService.DEFAULT_LOCK_LEASE_SECONDS,
+                IdempotentWriteService.DEFAULT_MAX_RESULT_LENGTH ) );
+        StandIns.inject( controller, "entitySetCardinalityService", new EntitySetCardinalityService(
+                hazelcast,
+                new HikariDataSource(),
+                entitySetManager,
+                EntitySetCardinalityService.DEFAULT_RECONCILE_AFTER_SECONDS ) );
+        StandIns.inject( controller, "dataRequestMetrics", new DataRequestMetrics( new MetricRegistry() ) );
+    }
+
+    @Benchmark
+    public List<UUID> createEntities() {
+        return controller.createEntities( entitySetId, newEntities );
+    }
+
+    @Benchmark
+    public Integer mergeEntities() {
+        return controller.updateEntitiesInEntitySet( entitySetId, entityUpdates, UpdateType.Merge );
+    }
+
+    private static Pair<List<UUID>, WriteEvent> createEntities( List<?> entities ) {
+        final List<UUID> entityKeyIds = new ArrayList<>( entities.size() );
+        for ( int i = 0; i < entities.size(); i++ ) {
+            entityKeyIds.add( UUID.randomUUID() );
+        }
+        return Pair.of( entityKeyIds, new WriteEvent( System.currentTimeMillis(), entities.size() ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<AclKey, EnumMap<Permission, Boolean>> authorizeAll( Object requests ) {
+        final var result = new HashMap<AclKey, EnumMap<Permission, Boolean>>();
+        ( (Map<AclKey, EnumSet<Permission>>) requests ).forEach( ( aclKey, permissions ) -> {
+            final var permissionMap = new EnumMap<Permission, Boolean>( Permission.class );
+            permissions.forEach( permission -> permissionMap.put( permission, true ) );
+            result.put( aclKey, permissionMap );
+        } );
+        return result;
+    }
+}
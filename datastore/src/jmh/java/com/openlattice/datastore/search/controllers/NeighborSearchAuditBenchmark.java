@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.search.controllers;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.openlattice.auditing.AuditableEvent;
+import com.openlattice.search.requests.EntityNeighborsFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Measures building the audit events of a filtered neighbor search, which grows with both the number of searched
+ * entities and the number of neighbors found.
+ */
+@State( Scope.Benchmark )
+public class NeighborSearchAuditBenchmark {
+    @Param( { "10", "10000" } )
+    public int entities;
+
+    @Param( { "10" } )
+    public int neighborsPerEntity;
+
+    @Param( { "5" } )
+    public int neighborEntitySets;
+
+    private final UUID userId      = UUID.randomUUID();
+    private final UUID entitySetId = UUID.randomUUID();
+
+    private EntityNeighborsFilter    filter;
+    private ListMultimap<UUID, UUID> neighborsByEntitySet;
+
+    @Setup
+    public void setUp() {
+        final Set<UUID> entityKeyIds = new HashSet<>( entities );
+        for ( int i = 0; i < entities; i++ ) {
+            entityKeyIds.add( UUID.randomUUID() );
+        }
+        filter = new EntityNeighborsFilter( entityKeyIds );
+
+        final UUID[] entitySetIds = new UUID[ neighborEntitySets ];
+        for ( int i = 0; i < neighborEntitySets; i++ ) {
+            entitySetIds[ i ] = UUID.randomUUID();
+        }
+        neighborsByEntitySet = ArrayListMultimap.create();
+        for ( int i = 0; i < entities * neighborsPerEntity; i++ ) {
+            neighborsByEntitySet.put( entitySetIds[ i % neighborEntitySets ], UUID.randomUUID() );
+        }
+    }
+
+    @Benchmark
+    public List<AuditableEvent> neighborSearchAuditEvents() {
+        return SearchController.neighborSearchAuditEvents( userId, entitySetId, filter, neighborsByEntitySet );
+    }
+}
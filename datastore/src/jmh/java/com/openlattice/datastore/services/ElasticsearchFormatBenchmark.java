@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Measures turning entities into Elasticsearch documents, which is done for every entity that is indexed.
+ */
+@State( Scope.Benchmark )
+public class ElasticsearchFormatBenchmark {
+    @Param( { "10", "100" } )
+    public int properties;
+
+    @Param( { "1", "10" } )
+    public int linkedEntities;
+
+    private final UUID entitySetId = UUID.randomUUID();
+
+    private Map<UUID, Set<Object>>                          entity;
+    private Map<UUID, Map<UUID, Map<UUID, Set<Object>>>> linkedEntity;
+
+    @Setup
+    public void setUp() {
+        entity = new HashMap<>( properties );
+        for ( int i = 0; i < properties; i++ ) {
+            final Set<Object> values = i % 2 == 0
+                    ? Set.of( "value " + i, "other value " + i )
+                    : Set.of( OffsetDateTime.now() );
+            entity.put( UUID.randomUUID(), values );
+        }
+
+        linkedEntity = new HashMap<>( linkedEntities );
+        for ( int i = 0; i < linkedEntities; i++ ) {
+            linkedEntity.put( UUID.randomUUID(), Map.of( UUID.randomUUID(), entity ) );
+        }
+    }
+
+    @Benchmark
+    public byte[] formatEntity() {
+        return DatastoreElasticsearchImpl.formatEntity( entitySetId, entity );
+    }
+
+    @Benchmark
+    public byte[] formatLinkedEntity() {
+        return DatastoreElasticsearchImpl.formatLinkedEntity( linkedEntity );
+    }
+}
@@ -33,6 +33,8 @@ import com.openlattice.analysis.requests.RankingAggregation
 import com.openlattice.authorization.*
 import com.openlattice.data.DataGraphManager
 import com.openlattice.data.requests.FileType
+import com.openlattice.datastore.authorization.RequestAuthorizationCache
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent
 import com.openlattice.datastore.services.AnalysisService
 import com.openlattice.datastore.services.EdmService
 import com.openlattice.datastore.services.EntitySetManager
@@ -60,7 +62,7 @@ import kotlin.collections.LinkedHashSet
 )
 @RestController
 @RequestMapping(CONTROLLER)
-class AnalysisController : AnalysisApi, AuthorizingComponent {
+class AnalysisController : AnalysisApi, RequestScopedAuthorizingComponent {
     @Inject
     private lateinit var analysisService: AnalysisService
 
@@ -79,6 +81,9 @@ class AnalysisController : AnalysisApi, AuthorizingComponent {
     @Inject
     private lateinit var entitySetManager: EntitySetManager
 
+    @Inject
+    private lateinit var requestAuthorizationCache: RequestAuthorizationCache
+
     @Timed
     @RequestMapping(
             path = [(ENTITY_SET_ID_PATH + NUM_RESULTS_PATH)],
@@ -231,6 +236,10 @@ class AnalysisController : AnalysisApi, AuthorizingComponent {
         return authorizations
     }
 
+    override fun getRequestAuthorizationCache(): RequestAuthorizationCache {
+        return requestAuthorizationCache
+    }
+
     private fun setDownloadContentType(response: HttpServletResponse, fileType: FileType) {
         if (fileType == FileType.csv) {
             response.contentType = CustomMediaType.TEXT_CSV_VALUE
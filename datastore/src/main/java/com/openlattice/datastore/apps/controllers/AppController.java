@@ -32,6 +32,8 @@ import com.openlattice.authorization.Permission;
 import com.openlattice.authorization.Principals;
 import com.openlattice.collections.CollectionTemplateType;
 import com.openlattice.collections.CollectionsManager;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.edm.requests.MetadataUpdate;
 import com.openlattice.organizations.HazelcastOrganizationService;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -49,7 +51,7 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping( AppApi.CONTROLLER )
-public class AppController implements AppApi, AuthorizingComponent {
+public class AppController implements AppApi, RequestScopedAuthorizingComponent {
 
     @Inject
     private AuthorizationManager authorizations;
@@ -63,6 +65,9 @@ public class AppController implements AppApi, AuthorizingComponent {
     @Inject
     private CollectionsManager collectionsManager;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Timed
     @Override
     @RequestMapping(
@@ -311,4 +316,9 @@ public class AppController implements AppApi, AuthorizingComponent {
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
 }
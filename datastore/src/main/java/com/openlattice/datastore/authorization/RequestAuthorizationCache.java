@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.authorization;
+
+import com.openlattice.authorization.AclKey;
+import com.openlattice.authorization.AuthorizationManager;
+import com.openlattice.authorization.EdmAuthorizationHelper;
+import com.openlattice.authorization.Permission;
+import com.openlattice.authorization.Principal;
+import com.openlattice.authorization.Principals;
+import com.openlattice.controllers.exceptions.ForbiddenException;
+import com.openlattice.edm.type.PropertyType;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Memoizes permission checks and authorized property types for the principals of the current request.
+ * <p>
+ * The memo lives in the request attributes, so it is dropped when the request completes and nothing is shared between
+ * requests. Every (acl key, permission) pair and every (entity set, permissions) property type lookup is resolved at
+ * most once per request, no matter how many controllers or endpoints check it along the way. Outside of a request,
+ * e.g. on background threads, nothing is memoized.
+ */
+public class RequestAuthorizationCache {
+    static final String MEMO_ATTRIBUTE = RequestAuthorizationCache.class.getName() + ".memo";
+
+    private final AuthorizationManager   authorizations;
+    private final EdmAuthorizationHelper authorizationHelper;
+
+    public RequestAuthorizationCache(
+            AuthorizationManager authorizations,
+            EdmAuthorizationHelper authorizationHelper ) {
+        this.authorizations = authorizations;
+        this.authorizationHelper = authorizationHelper;
+    }
+
+    public boolean checkIfHasPermissions( AclKey aclKey, EnumSet<Permission> permissions ) {
+        return authorize( Map.of( aclKey, permissions ) ).get( aclKey );
+    }
+
+    /**
+     * @return Whether the current principals have all of the requested permissions, for each acl key.
+     */
+    public Map<AclKey, Boolean> authorize( Map<AclKey, EnumSet<Permission>> requiredPermissionsByAclKey ) {
+        final var memo = currentMemo();
+
+        final var missing = new HashMap<AclKey, EnumSet<Permission>>();
+        requiredPermissionsByAclKey.forEach( ( aclKey, permissions ) -> permissions.forEach( permission -> {
+            if ( !memo.permissions.containsKey( Pair.of( aclKey, permission ) ) ) {
+                missing.computeIfAbsent( aclKey, k -> EnumSet.noneOf( Permission.class ) ).add( permission );
+            }
+        } ) );
+
+        if ( !missing.isEmpty() ) {
+            final var authorized = authorizations.authorize( missing, memo.principals );
+            missing.forEach( ( aclKey, permissions ) -> {
+                final var permissionMap = authorized.get( aclKey );
+                permissions.forEach( permission -> memo.permissions.put(
+                        Pair.of( aclKey, permission ),
+                        permissionMap != null && permissionMap.getOrDefault( permission, false ) ) );
+            } );
+        }
+
+        final var result = new HashMap<AclKey, Boolean>( requiredPermissionsByAclKey.size() );
+        requiredPermissionsByAclKey.forEach( ( aclKey, permissions ) -> result.put(
+                aclKey,
+                permissions.stream().allMatch( permission -> memo.permissions.get( Pair.of( aclKey, permission ) ) )
+        ) );
+        return result;
+    }
+
+    public void accessCheck( Map<AclKey, EnumSet<Permission>> requiredPermissionsByAclKey ) {
+        authorize( requiredPermissionsByAclKey ).forEach( ( aclKey, authorized ) -> {
+            if ( !authorized ) {
+                throw new ForbiddenException( "Insufficient permissions to perform operation on " + aclKey );
+            }
+        } );
+    }
+
+    public Map<UUID, PropertyType> getAuthorizedPropertyTypes( UUID entitySetId, EnumSet<Permission> permissions ) {
+        return currentMemo().propertyTypes.computeIfAbsent(
+                Pair.of( entitySetId, permissions ),
+                key -> authorizationHelper.getAuthorizedPropertyTypes( entitySetId, permissions ) );
+    }
+
+    /**
+     * @return The authorized property types of each entity set, looking up only the entity sets that haven't been
+     * looked up yet in this request with the same permissions.
+     */
+    public Map<UUID, Map<UUID, PropertyType>> getAuthorizedPropertiesOnEntitySets(
+            Set<UUID> entitySetIds,
+            EnumSet<Permission> permissions ) {
+        final var memo = currentMemo();
+
+        final var missing = entitySetIds.stream()
+                .filter( entitySetId -> !memo.propertyTypes.containsKey( Pair.of( entitySetId, permissions ) ) )
+                .collect( Collectors.toSet() );
+
+        if ( !missing.isEmpty() ) {
+            authorizationHelper.getAuthorizedPropertiesOnEntitySets( missing, permissions, memo.principals )
+                    .forEach( ( entitySetId, propertyTypes ) ->
+                            memo.propertyTypes.put( Pair.of( entitySetId, permissions ), propertyTypes ) );
+        }
+
+        final var result = new HashMap<UUID, Map<UUID, PropertyType>>( entitySetIds.size() );
+        entitySetIds.forEach( entitySetId -> result.put(
+                entitySetId,
+                memo.propertyTypes.getOrDefault( Pair.of( entitySetId, permissions ), Map.of() ) ) );
+        return result;
+    }
+
+    protected Set<Principal> currentPrincipals() {
+        return Principals.getCurrentPrincipals();
+    }
+
+    /**
+     * Returns the memo of the current request, starting a new one if the principals changed since it was created,
+     * e.g. after authenticating with a token passed as a request parameter.
+     */
+    Memo currentMemo() {
+        final var principals = currentPrincipals();
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        if ( attributes == null ) {
+            return new Memo( principals );
+        }
+
+        final var memo = (Memo) attributes.getAttribute( MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST );
+        if ( memo != null && memo.principals.equals( principals ) ) {
+            return memo;
+        }
+
+        final var newMemo = new Memo( principals );
+        attributes.setAttribute( MEMO_ATTRIBUTE, newMemo, RequestAttributes.SCOPE_REQUEST );
+        return newMemo;
+    }
+
+    static final class Memo {
+        private final Set<Principal>                                                 principals;
+        private final Map<Pair<AclKey, Permission>, Boolean>                         permissions   =
+                new ConcurrentHashMap<>();
+        private final Map<Pair<UUID, EnumSet<Permission>>, Map<UUID, PropertyType>> propertyTypes =
+                new ConcurrentHashMap<>();
+
+        Memo( Set<Principal> principals ) {
+            this.principals = principals;
+        }
+    }
+}
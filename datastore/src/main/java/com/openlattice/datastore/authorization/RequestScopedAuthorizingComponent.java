@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.authorization;
+
+import com.openlattice.authorization.AclKey;
+import com.openlattice.authorization.AuthorizingComponent;
+import com.openlattice.authorization.Permission;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * An {@link AuthorizingComponent} whose access checks go through the {@link RequestAuthorizationCache}, so that
+ * controllers handling the same request share the permission checks already made.
+ */
+public interface RequestScopedAuthorizingComponent extends AuthorizingComponent {
+
+    RequestAuthorizationCache getRequestAuthorizationCache();
+
+    @Override
+    default void ensureReadAccess( AclKey aclKey ) {
+        accessCheck( aclKey, EnumSet.of( Permission.READ ) );
+    }
+
+    @Override
+    default void ensureWriteAccess( AclKey aclKey ) {
+        accessCheck( aclKey, EnumSet.of( Permission.WRITE ) );
+    }
+
+    @Override
+    default void ensureOwnerAccess( AclKey aclKey ) {
+        accessCheck( aclKey, EnumSet.of( Permission.OWNER ) );
+    }
+
+    @Override
+    default void accessCheck( AclKey aclKey, EnumSet<Permission> requiredPermissions ) {
+        getRequestAuthorizationCache().accessCheck( Map.of( aclKey, requiredPermissions ) );
+    }
+
+    @Override
+    default void accessCheck( Map<AclKey, EnumSet<Permission>> requiredPermissionsByAclKey ) {
+        getRequestAuthorizationCache().accessCheck( requiredPermissionsByAclKey );
+    }
+}
@@ -24,6 +24,8 @@ import com.codahale.metrics.annotation.Timed;
 import com.openlattice.authorization.*;
 import com.openlattice.authorization.paging.AuthorizedObjectsSearchResult;
 import com.openlattice.authorization.securable.SecurableObjectType;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -38,11 +40,14 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping( AuthorizationsApi.CONTROLLER )
-public class AuthorizationsController implements AuthorizationsApi, AuthorizingComponent {
+public class AuthorizationsController implements AuthorizationsApi, RequestScopedAuthorizingComponent {
 
     @Inject
     private AuthorizationManager authorizations;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Timed
     @Override
     @RequestMapping(
@@ -58,6 +63,11 @@ public class AuthorizationsController implements AuthorizationsApi, AuthorizingC
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @Timed
     @Override
     @RequestMapping(
@@ -22,26 +22,56 @@ package com.openlattice.datastore.data.controllers;
 
 import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
 import com.codahale.metrics.annotation.Timed;
+import com.dataloom.mappers.ObjectMappers;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.openlattice.auditing.AssociationAuditingManager;
 import com.openlattice.auditing.AuditEventType;
 import com.openlattice.auditing.AuditableEvent;
 import com.openlattice.auditing.AuditingComponent;
 import com.openlattice.auditing.AuditingManager;
+import com.openlattice.auditing.CompactAssociationAuditBatch;
 import com.openlattice.authorization.AclKey;
 import com.openlattice.authorization.AuthorizationManager;
 import com.openlattice.authorization.AuthorizingComponent;
 import com.openlattice.authorization.EdmAuthorizationHelper;
 import com.openlattice.authorization.Permission;
+import com.openlattice.authorization.Principal;
 import com.openlattice.authorization.Principals;
 import com.openlattice.controllers.exceptions.BadRequestException;
 import com.openlattice.controllers.exceptions.ForbiddenException;
 import com.openlattice.data.*;
-import com.openlattice.data.graph.DataGraphServiceHelper;
 import com.openlattice.data.requests.EntitySetSelection;
 import com.openlattice.data.requests.FileType;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
+import com.openlattice.datastore.data.DataGraphJobStatus;
+import com.openlattice.datastore.data.DeletionJobStatus;
+import com.openlattice.datastore.data.EntityBatchReadRequest;
+import com.openlattice.datastore.data.NeighborDeletePlan;
+import com.openlattice.datastore.data.NeighborDeletePlanSummary;
+import com.openlattice.datastore.data.export.ArrowEntitySetDataWriter;
+import com.openlattice.datastore.data.export.EntitySetDataStreamer;
+import com.openlattice.datastore.data.ingest.JsonChunkReader;
+import com.openlattice.datastore.services.DataGraphJobService;
+import com.openlattice.datastore.services.DataRequestMetrics;
+import com.openlattice.datastore.services.DataRequestPhase;
+import com.openlattice.datastore.services.EdgeEntityTypeValidator;
 import com.openlattice.datastore.services.EdmService;
+import com.openlattice.datastore.services.EntityKeyIdCursor;
+import com.openlattice.datastore.services.EntityKeyIdPager;
+import com.openlattice.datastore.services.EntitySetCardinalityService;
+import com.openlattice.datastore.services.EntitySetDataPage;
 import com.openlattice.datastore.services.EntitySetManager;
+import com.openlattice.datastore.services.IdempotentWriteService;
+import com.openlattice.datastore.services.LinkingEntitySetReader;
+import com.openlattice.datastore.services.NeighborDeletePlanner;
+import com.openlattice.datastore.services.ParallelEntitySetWriter;
+import com.openlattice.datastore.services.PipelinedEntityCreator;
+import com.openlattice.datastore.services.ThrottledDeletionService;
 import com.openlattice.edm.EntitySet;
 import com.openlattice.edm.set.EntitySetFlag;
 import com.openlattice.edm.type.PropertyType;
@@ -51,7 +81,6 @@ import com.openlattice.web.mediatypes.CustomMediaType;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.lang3.tuple.Triple;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.MediaType;
@@ -59,21 +88,29 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Maps.transformValues;
+import static com.openlattice.authorization.EdmAuthorizationHelper.OWNER_PERMISSION;
 import static com.openlattice.authorization.EdmAuthorizationHelper.READ_PERMISSION;
 import static com.openlattice.authorization.EdmAuthorizationHelper.WRITE_PERMISSION;
 import static com.openlattice.authorization.EdmAuthorizationHelper.aclKeysForAccessCheck;
@@ -83,7 +120,33 @@ import static com.openlattice.authorization.EdmAuthorizationHelper.aclKeysForAcc
         justification = "NPEs are prevented by Preconditions.checkState but SpotBugs doesn't understand this" )
 @RestController
 @RequestMapping( DataApi.CONTROLLER )
-public class DataController implements DataApi, AuthorizingComponent, AuditingComponent {
+public class DataController implements DataApi, RequestScopedAuthorizingComponent, AuditingComponent {
+    public static final String STREAM             = "stream";
+    public static final String PAGE               = "page";
+    public static final String PAGE_SIZE          = "size";
+    public static final String CURSOR             = "cursor";
+    public static final String SLICE              = "slice";
+    public static final String SLICES             = "slices";
+    public static final String DEFAULT_PAGE_SIZE  = "1000";
+    public static final String PARALLELISM        = "parallelism";
+    public static final String ENTITY             = "entity";
+    public static final String BATCH              = "batch";
+    public static final String INGEST             = "ingest";
+    public static final String CHUNK_SIZE         = "chunkSize";
+    public static final String DEFAULT_CHUNK_SIZE = "10000";
+    public static final String PIPELINE_DEPTH     = "pipelineDepth";
+    public static final String IDEMPOTENCY_KEY    = "Idempotency-Key";
+    public static final String JOB                = "job";
+    public static final String JOB_ID             = "jobId";
+    public static final String JOB_ID_PATH        = "{" + JOB_ID + "}";
+    public static final String DELETE             = "delete";
+    public static final String ROWS_PER_SECOND    = "rowsPerSecond";
+    public static final String BATCH_SIZE         = "batchSize";
+    public static final String PLAN               = "plan";
+    public static final String DRY_RUN            = "dryRun";
+    public static final String ESTIMATE           = "estimate";
+
+    private static final int MAX_BATCH_READ_SIZE = 1_000;
 
     @Inject
     private EntitySetManager entitySetService;
@@ -104,17 +167,59 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
     private AuthenticationManager authProvider;
 
     @Inject
-    private AuditingManager auditingManager;
+    private AssociationAuditingManager auditingManager;
 
     @Inject
     private SecurePrincipalsManager spm;
 
     @Inject
-    private DataGraphServiceHelper dataGraphServiceHelper;
+    private EdgeEntityTypeValidator edgeEntityTypeValidator;
 
     @Inject
     private DataDeletionManager deletionManager;
 
+    @Inject
+    private EntitySetDataStreamer entitySetDataStreamer;
+
+    @Inject
+    private ArrowEntitySetDataWriter arrowEntitySetDataWriter;
+
+    @Inject
+    private EntityKeyIdPager entityKeyIdPager;
+
+    @Inject
+    private LinkingEntitySetReader linkingEntitySetReader;
+
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
+    @Inject
+    private JsonChunkReader jsonChunkReader;
+
+    @Inject
+    private PipelinedEntityCreator pipelinedEntityCreator;
+
+    @Inject
+    private IdempotentWriteService idempotentWriteService;
+
+    @Inject
+    private DataGraphJobService dataGraphJobService;
+
+    @Inject
+    private ParallelEntitySetWriter parallelEntitySetWriter;
+
+    @Inject
+    private ThrottledDeletionService throttledDeletionService;
+
+    @Inject
+    private NeighborDeletePlanner neighborDeletePlanner;
+
+    @Inject
+    private EntitySetCardinalityService entitySetCardinalityService;
+
+    @Inject
+    private DataRequestMetrics dataRequestMetrics;
+
     @RequestMapping(
             path = { "/" + ENTITY_SET + "/" + SET_ID_PATH },
             method = RequestMethod.GET,
@@ -140,14 +245,188 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             UUID entitySetId,
             FileType fileType,
             String token ) {
-        if ( StringUtils.isNotBlank( token ) ) {
-            Authentication authentication = authProvider
-                    .authenticate( PreAuthenticatedAuthenticationJsonWebToken.usingToken( token ) );
-            SecurityContextHolder.getContext().setAuthentication( authentication );
-        }
+        authenticateWithToken( token );
         return loadEntitySetData( entitySetId, new EntitySetSelection( Optional.empty() ) );
     }
 
+    @GetMapping( path = "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + STREAM )
+    @Timed
+    public void streamEntitySetData(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = FILE_TYPE, required = false ) FileType fileType,
+            @RequestParam( value = TOKEN, required = false ) String token,
+            HttpServletResponse response ) throws IOException {
+        authenticateWithToken( token );
+        streamEntitySetData( entitySetId, new EntitySetSelection( Optional.empty() ), fileType, response );
+    }
+
+    @PostMapping(
+            path = "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + STREAM,
+            consumes = MediaType.APPLICATION_JSON_VALUE )
+    @Timed
+    public void streamEntitySetData(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestBody( required = false ) EntitySetSelection selection,
+            @RequestParam( value = FILE_TYPE, required = false ) FileType fileType,
+            HttpServletResponse response ) throws IOException {
+        streamEntitySetData( entitySetId, selection, fileType, response );
+    }
+
+    /**
+     * Writes the selected entity set data directly to the response as rows are read from storage, instead of
+     * materializing the whole entity set before handing it to the message converters.
+     */
+    private void streamEntitySetData(
+            UUID entitySetId,
+            EntitySetSelection selection,
+            FileType fileType,
+            HttpServletResponse response ) throws IOException {
+        final var timer = dataRequestMetrics.start( "streamEntitySetData" );
+        final var entitySetData = loadEntitySetData( entitySetId, selection );
+        timer.split( DataRequestPhase.AUTHORIZATION );
+
+        setContentDisposition( response, entitySetId.toString(), fileType );
+        setDownloadContentType( response, fileType );
+
+        // Rows are read from storage as they are written, so this covers both.
+        try ( OutputStream out = response.getOutputStream() ) {
+            if ( fileType == FileType.csv ) {
+                entitySetDataStreamer.writeCsv( entitySetData, out );
+            } else {
+                entitySetDataStreamer.writeJson( entitySetData, out );
+            }
+        }
+        timer.split( DataRequestPhase.SERIALIZATION );
+    }
+
+    @GetMapping(
+            path = "/" + ENTITY_SET + "/" + SET_ID_PATH,
+            produces = ArrowEntitySetDataWriter.ARROW_STREAM_VALUE )
+    @Timed
+    public void loadEntitySetDataAsArrow(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = TOKEN, required = false ) String token,
+            HttpServletResponse response ) throws IOException {
+        authenticateWithToken( token );
+        writeEntitySetDataAsArrow( entitySetId, new EntitySetSelection( Optional.empty() ), response );
+    }
+
+    @PostMapping(
+            path = "/" + ENTITY_SET + "/" + SET_ID_PATH,
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = ArrowEntitySetDataWriter.ARROW_STREAM_VALUE )
+    @Timed
+    public void loadEntitySetDataAsArrow(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestBody( required = false ) EntitySetSelection selection,
+            HttpServletResponse response ) throws IOException {
+        writeEntitySetDataAsArrow( entitySetId, selection, response );
+    }
+
+    /**
+     * Writes the selected entity set data as an Arrow IPC stream with one typed column per property, for analytics
+     * clients that would otherwise have to parse and re-type json or csv.
+     */
+    private void writeEntitySetDataAsArrow(
+            UUID entitySetId,
+            EntitySetSelection selection,
+            HttpServletResponse response ) throws IOException {
+        final var entitySetData = loadEntitySetData( entitySetId, selection );
+        final Map<String, PropertyType> propertyTypesByFqn = edmService
+                .getPropertyTypesAsMap( getSelectedProperties( entitySetId, selection ) )
+                .values()
+                .stream()
+                .collect( Collectors.toMap( pt -> pt.getType().getFullQualifiedNameAsString(), pt -> pt ) );
+
+        response.setContentType( ArrowEntitySetDataWriter.ARROW_STREAM_VALUE );
+        response.setHeader( "Content-Disposition",
+                "attachment; filename=" + entitySetId + "." + ArrowEntitySetDataWriter.FILE_EXTENSION );
+
+        try ( OutputStream out = response.getOutputStream() ) {
+            arrowEntitySetDataWriter.write( entitySetData, propertyTypesByFqn, out );
+        }
+    }
+
+    /**
+     * Reads one page of an entity set in entity key id order. The first page of a read is requested without a
+     * cursor, optionally restricted to one of {@code slices} equal ranges of the id space so that several readers can
+     * split an entity set between them. Every following page is requested with the {@code nextCursor} of the
+     * previous one until it is null.
+     */
+    @GetMapping(
+            path = "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + PAGE,
+            produces = MediaType.APPLICATION_JSON_VALUE )
+    @Timed
+    public EntitySetDataPage loadEntitySetDataPage(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = PAGE_SIZE, defaultValue = DEFAULT_PAGE_SIZE ) int pageSize,
+            @RequestParam( value = CURSOR, required = false ) String cursor,
+            @RequestParam( value = SLICE, defaultValue = "0" ) int slice,
+            @RequestParam( value = SLICES, defaultValue = "1" ) int slices ) {
+        ensureReadAccess( new AclKey( entitySetId ) );
+        final var entitySet = entitySetService.getEntitySet( entitySetId );
+        checkState( entitySet != null, "Could not find entity set with id: %s", entitySetId );
+
+        final var position = StringUtils.isBlank( cursor )
+                ? EntityKeyIdCursor.forSlice( slice, slices )
+                : EntityKeyIdCursor.decode( cursor );
+        final var page = entityKeyIdPager.getPage( entitySet, position, pageSize );
+
+        if ( page.getIds().isEmpty() ) {
+            return new EntitySetDataPage( List.of(), page.getNextCursor() );
+        }
+
+        final var entitySetData = loadEntitySetData(
+                entitySetId,
+                new EntitySetSelection( Optional.empty(), Optional.of( Set.copyOf( page.getIds() ) ) ) );
+        return new EntitySetDataPage( ImmutableList.copyOf( entitySetData.getEntities() ), page.getNextCursor() );
+    }
+
+    /**
+     * Reads entities from any number of entity sets in one call. Keys are grouped by entity set, read access on all
+     * of the entity sets is checked at once and each entity set is then read with a single query.
+     *
+     * @return The entities that were found, keyed by entity set id.
+     */
+    @PostMapping(
+            path = "/" + ENTITY + "/" + BATCH,
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE )
+    @Timed
+    public Map<UUID, List<Map<FullQualifiedName, Set<Object>>>> loadEntities(
+            @RequestBody EntityBatchReadRequest request ) {
+        checkArgument( request.getEntityDataKeys().size() <= MAX_BATCH_READ_SIZE,
+                "Cannot read more than %s entities at once.", MAX_BATCH_READ_SIZE );
+
+        final Map<UUID, Set<UUID>> entityKeyIdsByEntitySetId = request.getEntityDataKeys().stream()
+                .collect( Collectors.groupingBy(
+                        EntityDataKey::getEntitySetId,
+                        Collectors.mapping( EntityDataKey::getEntityKeyId, Collectors.toSet() ) ) );
+
+        final var entitySets = entitySetService.getEntitySetsAsMap( entityKeyIdsByEntitySetId.keySet() );
+        checkState( entitySets.keySet().containsAll( entityKeyIdsByEntitySetId.keySet() ),
+                "Could not find entity sets with ids: %s",
+                Sets.difference( entityKeyIdsByEntitySetId.keySet(), entitySets.keySet() ) );
+
+        final var requiredPermissions = new HashMap<AclKey, EnumSet<Permission>>();
+        entitySets.values().forEach( entitySet -> {
+            requiredPermissions.put( new AclKey( entitySet.getId() ), READ_PERMISSION );
+            if ( entitySet.isLinking() ) {
+                entitySet.getLinkedEntitySets()
+                        .forEach( esId -> requiredPermissions.put( new AclKey( esId ), READ_PERMISSION ) );
+            }
+        } );
+        accessCheck( requiredPermissions );
+
+        return Maps.toMap( entityKeyIdsByEntitySetId.keySet(), entitySetId -> ImmutableList.copyOf(
+                readEntitySetData(
+                        entitySets.get( entitySetId ),
+                        new EntitySetSelection(
+                                request.getSelectedProperties( entitySetId ),
+                                Optional.of( entityKeyIdsByEntitySetId.get( entitySetId ) ) ) )
+                        .getEntities() ) );
+    }
+
     @RequestMapping(
             path = { "/" + ENTITY_SET + "/" + SET_ID_PATH },
             method = RequestMethod.POST,
@@ -175,14 +454,23 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
     private EntitySetData<FullQualifiedName> loadEntitySetData(
             UUID entitySetId,
             EntitySetSelection selection ) {
-        if ( !authz.checkIfHasPermissions(
-                new AclKey( entitySetId ), Principals.getCurrentPrincipals(), READ_PERMISSION ) ) {
+        if ( !requestAuthorizationCache.checkIfHasPermissions( new AclKey( entitySetId ), READ_PERMISSION ) ) {
             throw new ForbiddenException( "Insufficient permissions to read the entity set " + entitySetId
                     + " or it doesn't exists." );
         }
         final var entitySet = entitySetService.getEntitySet( entitySetId );
         checkState( entitySet != null, "Could not find entity set with id: %s", entitySetId );
 
+        return readEntitySetData( entitySet, selection );
+    }
+
+    /**
+     * Reads the selected entities and properties of an entity set whose read access has already been checked.
+     */
+    private EntitySetData<FullQualifiedName> readEntitySetData(
+            EntitySet entitySet,
+            EntitySetSelection selection ) {
+        final var entitySetId = entitySet.getId();
         Optional<Set<UUID>> entityKeyIds = ( selection == null ) ? Optional.empty() : selection.getEntityKeyIds();
         final var selectedProperties = getSelectedProperties( entitySetId, selection );
 
@@ -204,11 +492,20 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                 .map( pt -> pt.getType().getFullQualifiedNameAsString() )
                 .forEach( orderedPropertyNames::add );
 
+        if ( entitySet.isLinking() ) {
+            return linkingEntitySetReader.getEntitySetData(
+                    entitySet,
+                    entityKeyIds,
+                    orderedPropertyNames,
+                    authorizedPropertyTypesOfEntitySets,
+                    getReadParallelism() );
+        }
+
         return dgm.getEntitySetData(
                 entityKeyIdsOfEntitySets,
                 orderedPropertyNames,
                 authorizedPropertyTypesOfEntitySets,
-                entitySet.isLinking() );
+                false );
     }
 
     private Set<UUID> getSelectedProperties( UUID entitySetId, EntitySetSelection selection ) {
@@ -253,16 +550,34 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
             @RequestBody Map<UUID, Map<UUID, Set<Object>>> entities,
             @RequestParam( value = TYPE, defaultValue = "Merge" ) UpdateType updateType ) {
+        return idempotently(
+                "updateEntitiesInEntitySet/" + entitySetId + "/" + updateType,
+                entities,
+                new TypeReference<Integer>() {},
+                () -> writeEntityUpdates( entitySetId, entities, updateType ) );
+    }
+
+    private Integer writeEntityUpdates(
+            UUID entitySetId,
+            Map<UUID, Map<UUID, Set<Object>>> entities,
+            UpdateType updateType ) {
+        final var timer = dataRequestMetrics.start( "updateEntitiesInEntitySet" );
+        dataRequestMetrics.recordPayload( "updateEntitiesInEntitySet",
+                entities.size(),
+                countPropertyValues( entities.values() ) );
+
         Preconditions.checkNotNull( updateType, "An invalid update type value was specified." );
         ensureReadAccess( new AclKey( entitySetId ) );
         ensureEntitySetCanBeWritten( entitySetId );
 
         var requiredPropertyTypes = requiredEntitySetPropertyTypes( entities );
         assertRequiredEntitySetPropertyTypesMatchEDM( entitySetId, requiredPropertyTypes );
+        timer.split( DataRequestPhase.VALIDATION );
 
-        var allAuthorizedPropertyTypes = authzHelper
+        var allAuthorizedPropertyTypes = requestAuthorizationCache
                 .getAuthorizedPropertyTypes( entitySetId, EnumSet.of( Permission.WRITE ) );
         accessCheck( allAuthorizedPropertyTypes, requiredPropertyTypes );
+        timer.split( DataRequestPhase.AUTHORIZATION );
 
         var authorizedPropertyTypes = Maps.asMap( requiredPropertyTypes, allAuthorizedPropertyTypes::get );
 
@@ -285,6 +600,7 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             default:
                 throw new BadRequestException( "Unsupported UpdateType: \"" + updateType + "\'" );
         }
+        timer.split( DataRequestPhase.STORAGE );
 
         recordEvent( new AuditableEvent(
                 spm.getCurrentUserId(),
@@ -297,10 +613,36 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                 getDateTimeFromLong( writeEvent.getVersion() ),
                 Optional.empty()
         ) );
+        timer.split( DataRequestPhase.AUDIT );
 
         return writeEvent.getNumUpdates();
     }
 
+    /**
+     * Same as {@link #updateEntitiesInEntitySet(UUID, Map, UpdateType)}, but reads the request body incrementally and
+     * writes it in chunks of {@code chunkSize} entities, so the whole body is never bound in memory at once. Chunks are
+     * written, validated and audited one at a time, so a failing chunk does not undo the chunks before it.
+     */
+    @PutMapping(
+            value = "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + INGEST,
+            consumes = MediaType.APPLICATION_JSON_VALUE )
+    @Timed
+    public Integer ingestEntitiesInEntitySet(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = TYPE, defaultValue = "Merge" ) UpdateType updateType,
+            @RequestParam( value = CHUNK_SIZE, defaultValue = DEFAULT_CHUNK_SIZE ) int chunkSize,
+            HttpServletRequest request ) throws IOException {
+        ensureReadAccess( new AclKey( entitySetId ) );
+        ensureEntitySetCanBeWritten( entitySetId );
+
+        return jsonChunkReader.readObject(
+                request.getInputStream(),
+                new TypeReference<Map<UUID, Set<Object>>>() {},
+                chunkSize,
+                entities -> writeEntityUpdates( entitySetId, entities, updateType )
+        ).stream().mapToInt( Integer::intValue ).sum();
+    }
+
     @PatchMapping(
             value = "/" + ENTITY_SET + "/" + SET_ID_PATH,
             consumes = MediaType.APPLICATION_JSON_VALUE )
@@ -341,45 +683,49 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
     @Timed
     @PutMapping( value = "/" + ASSOCIATION, consumes = MediaType.APPLICATION_JSON_VALUE )
     public Integer createEdges( @RequestBody Set<DataEdgeKey> associations ) {
+        return idempotently(
+                "createEdges",
+                associations,
+                new TypeReference<Integer>() {},
+                () -> writeEdges( associations ) );
+    }
+
+    private Integer writeEdges( Set<DataEdgeKey> associations ) {
+        final var timer = dataRequestMetrics.start( "createEdges" );
+        dataRequestMetrics.recordPayload( "createEdges", associations.size(), 0 );
 
         Set<UUID> entitySetIds = getEntitySetIdsFromCollection( associations, this::streamEntitySetIds );
         checkPermissionsOnEntitySetIds( entitySetIds, EnumSet.of( Permission.READ, Permission.WRITE ) );
+        timer.split( DataRequestPhase.AUTHORIZATION );
 
         //Allowed entity types check
-        dataGraphServiceHelper.checkEdgeEntityTypes( associations );
+        edgeEntityTypeValidator.checkEdgeEntityTypes( associations );
+        timer.split( DataRequestPhase.VALIDATION );
 
         WriteEvent writeEvent = dgm.createAssociations( associations );
+        timer.split( DataRequestPhase.STORAGE );
+
+        final UUID currentUserId = spm.getCurrentUserId();
+        final OffsetDateTime writeDateTime = getDateTimeFromLong( writeEvent.getVersion() );
+        final Map<UUID, CompactAssociationAuditBatch> neighborMappingsCreated = new HashMap<>();
+        associations.stream()
+                .collect( Collectors.groupingBy( dataEdgeKey -> dataEdgeKey.getEdge().getEntitySetId() ) )
+                .forEach( ( edgeEntitySetId, dataEdgeKeys ) -> {
+                    final var batch = new CompactAssociationAuditBatch(
+                            currentUserId,
+                            "Create associations between entities using DataApi.createAssociations",
+                            writeDateTime,
+                            edgeEntitySetId,
+                            dataEdgeKeys.size() );
+                    dataEdgeKeys.forEach( dataEdgeKey -> batch.add(
+                            dataEdgeKey.getSrc(),
+                            dataEdgeKey.getDst(),
+                            dataEdgeKey.getEdge().getEntityKeyId() ) );
+                    neighborMappingsCreated.put( edgeEntitySetId, batch );
+                } );
 
-        Stream<Pair<EntityDataKey, Map<String, Object>>> neighborMappingsCreated = associations.stream()
-                .flatMap( dataEdgeKey -> Stream.of(
-                        Pair.of( dataEdgeKey.getSrc(),
-                                ImmutableMap.of( "association",
-                                        dataEdgeKey.getEdge(),
-                                        "neighbor",
-                                        dataEdgeKey.getDst(),
-                                        "isSrc",
-                                        true ) ),
-                        Pair.of( dataEdgeKey.getDst(),
-                                ImmutableMap.of( "association",
-                                        dataEdgeKey.getEdge(),
-                                        "neighbor",
-                                        dataEdgeKey.getSrc(),
-                                        "isSrc",
-                                        false ) ),
-                        Pair.of( dataEdgeKey.getEdge(),
-                                ImmutableMap.of( "src", dataEdgeKey.getSrc(), "dst", dataEdgeKey.getDst() ) )
-                ) );
-
-        recordEvents( neighborMappingsCreated.map( pair -> new AuditableEvent(
-                spm.getCurrentUserId(),
-                new AclKey( pair.getKey().getEntitySetId() ),
-                AuditEventType.ASSOCIATE_ENTITIES,
-                "Create associations between entities using DataApi.createAssociations",
-                Optional.of( ImmutableSet.of( pair.getKey().getEntityKeyId() ) ),
-                pair.getValue(),
-                getDateTimeFromLong( writeEvent.getVersion() ),
-                Optional.empty()
-        ) ).collect( Collectors.toList() ) );
+        recordAssociationEvents( List.copyOf( neighborMappingsCreated.values() ) );
+        timer.split( DataRequestPhase.AUDIT );
 
         return writeEvent.getNumUpdates();
     }
@@ -393,6 +739,17 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
     public List<UUID> createEntities(
             @RequestParam( ENTITY_SET_ID ) UUID entitySetId,
             @RequestBody List<Map<UUID, Set<Object>>> entities ) {
+        return idempotently(
+                "createEntities/" + entitySetId,
+                entities,
+                new TypeReference<List<UUID>>() {},
+                () -> writeEntities( entitySetId, entities ) );
+    }
+
+    private List<UUID> writeEntities( UUID entitySetId, List<Map<UUID, Set<Object>>> entities ) {
+        final var timer = dataRequestMetrics.start( "createEntities" );
+        dataRequestMetrics.recordPayload( "createEntities", entities.size(), countPropertyValues( entities ) );
+
         //Ensure that we have read access to entity set metadata.
         ensureReadAccess( new AclKey( entitySetId ) );
         ensureEntitySetCanBeWritten( entitySetId );
@@ -400,12 +757,28 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                 .flatMap( entity -> entity.keySet().stream() )
                 .collect( Collectors.toSet() );
         //Load authorized property types
-        final Map<UUID, PropertyType> authorizedPropertyTypes = authzHelper
+        final Map<UUID, PropertyType> authorizedPropertyTypes = requestAuthorizationCache
                 .getAuthorizedPropertyTypes( entitySetId, WRITE_PERMISSION );
         accessCheck( authorizedPropertyTypes, requiredPropertyTypes );
-        Pair<List<UUID>, WriteEvent> entityKeyIdsToWriteEvent = dgm
-                .createEntities( entitySetId, entities, authorizedPropertyTypes );
+        timer.split( DataRequestPhase.AUTHORIZATION );
+        final int chunkSize = getIntParameter(
+                CHUNK_SIZE,
+                pipelinedEntityCreator.getChunkSize(),
+                PipelinedEntityCreator.MAX_CHUNK_SIZE );
+        final Pair<List<UUID>, WriteEvent> entityKeyIdsToWriteEvent;
+        if ( entities.size() > chunkSize ) {
+            final int pipelineDepth = getIntParameter(
+                    PIPELINE_DEPTH,
+                    pipelinedEntityCreator.getPipelineDepth(),
+                    PipelinedEntityCreator.MAX_PIPELINE_DEPTH );
+            entityKeyIdsToWriteEvent = pipelinedEntityCreator
+                    .createEntities( entitySetId, entities, authorizedPropertyTypes, chunkSize, pipelineDepth );
+        } else {
+            entityKeyIdsToWriteEvent = dgm.createEntities( entitySetId, entities, authorizedPropertyTypes );
+        }
         List<UUID> entityKeyIds = entityKeyIdsToWriteEvent.getKey();
+        entitySetCardinalityService.entitiesCreated( entitySetId, entityKeyIds.size() );
+        timer.split( DataRequestPhase.STORAGE );
 
         recordEvent( new AuditableEvent(
                 spm.getCurrentUserId(),
@@ -417,10 +790,34 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                 getDateTimeFromLong( entityKeyIdsToWriteEvent.getValue().getVersion() ),
                 Optional.empty()
         ) );
+        timer.split( DataRequestPhase.AUDIT );
 
         return entityKeyIds;
     }
 
+    /**
+     * Same as {@link #createEntities(UUID, List)}, but reads the request body incrementally and creates the entities in
+     * chunks of {@code chunkSize}. The returned entity key ids are in the order of the request body.
+     */
+    @Timed
+    @PostMapping(
+            value = "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + INGEST,
+            consumes = MediaType.APPLICATION_JSON_VALUE )
+    public List<UUID> ingestEntities(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = CHUNK_SIZE, defaultValue = DEFAULT_CHUNK_SIZE ) int chunkSize,
+            HttpServletRequest request ) throws IOException {
+        ensureReadAccess( new AclKey( entitySetId ) );
+        ensureEntitySetCanBeWritten( entitySetId );
+
+        return jsonChunkReader.readArray(
+                request.getInputStream(),
+                new TypeReference<Map<UUID, Set<Object>>>() {},
+                chunkSize,
+                entities -> writeEntities( entitySetId, entities )
+        ).stream().flatMap( List::stream ).collect( Collectors.toList() );
+    }
+
     @Timed
     @Override
     @PutMapping(
@@ -439,6 +836,11 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         return authz;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @Timed
     @Override
     @RequestMapping(
@@ -446,6 +848,19 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             method = RequestMethod.POST,
             consumes = MediaType.APPLICATION_JSON_VALUE )
     public ListMultimap<UUID, UUID> createAssociations( @RequestBody ListMultimap<UUID, DataEdge> associations ) {
+        return idempotently(
+                "createAssociations",
+                associations,
+                new TypeReference<ListMultimap<UUID, UUID>>() {},
+                () -> writeAssociations( associations ) );
+    }
+
+    private ListMultimap<UUID, UUID> writeAssociations( ListMultimap<UUID, DataEdge> associations ) {
+        final var timer = dataRequestMetrics.start( "createAssociations" );
+        dataRequestMetrics.recordPayload( "createAssociations",
+                associations.size(),
+                countPropertyValues( Collections2.transform( associations.values(), DataEdge::getData ) ) );
+
         //Ensure that we have read access to entity set metadata.
         Set<UUID> entitySetIds = getEntitySetIdsFromCollection( associations.values(), this::streamEntitySetIds );
         checkPermissionsOnEntitySetIds( entitySetIds, READ_PERMISSION );
@@ -454,12 +869,27 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         final SetMultimap<UUID, UUID> requiredPropertyTypes = requiredAssociationPropertyTypes( associations );
         accessCheck( aclKeysForAccessCheck( requiredPropertyTypes, WRITE_PERMISSION ) );
 
-        final Map<UUID, Map<UUID, PropertyType>> authorizedPropertyTypesByEntitySet = authzHelper
+        final Map<UUID, Map<UUID, PropertyType>> authorizedPropertyTypesByEntitySet = requestAuthorizationCache
                 .getAuthorizedPropertiesOnEntitySets( associations.keySet(), WRITE_PERMISSION );
+        timer.split( DataRequestPhase.AUTHORIZATION );
+
+        edgeEntityTypeValidator.checkAssociationEntityTypes( associations );
+        timer.split( DataRequestPhase.VALIDATION );
+
+        return createAndAuditAssociations( associations, authorizedPropertyTypesByEntitySet, timer );
+    }
 
-        dataGraphServiceHelper.checkAssociationEntityTypes( associations );
+    /**
+     * Creates associations that have already been authorized and checked against the allowed entity types. The time
+     * spent is split into storage and audit on the given timer.
+     */
+    private ListMultimap<UUID, UUID> createAndAuditAssociations(
+            ListMultimap<UUID, DataEdge> associations,
+            Map<UUID, Map<UUID, PropertyType>> authorizedPropertyTypesByEntitySet,
+            DataRequestMetrics.PhaseTimer timer ) {
         Map<UUID, CreateAssociationEvent> associationsCreated = dgm
                 .createAssociations( associations, authorizedPropertyTypesByEntitySet );
+        timer.split( DataRequestPhase.STORAGE );
 
         ListMultimap<UUID, UUID> associationIds = ArrayListMultimap.create();
 
@@ -470,6 +900,7 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             OffsetDateTime writeDateTime = getDateTimeFromLong( entry.getValue().getEntityWriteEvent()
                     .getVersion() );
             associationIds.putAll( associationEntitySetId, entry.getValue().getIds() );
+            entitySetCardinalityService.entitiesCreated( associationEntitySetId, entry.getValue().getIds().size() );
 
             return new AuditableEvent(
                     currentUserId,
@@ -483,59 +914,56 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             );
         } );
 
-        Stream<AuditableEvent> neighborMappingsCreated = associationsCreated
+        final List<CompactAssociationAuditBatch> neighborMappingsCreated = associationsCreated
                 .entrySet()
                 .stream()
-                .flatMap( entry -> {
+                .map( entry -> {
                     UUID associationEntitySetId = entry.getKey();
-                    OffsetDateTime writeDateTime = getDateTimeFromLong( entry.getValue().getEdgeWriteEvent()
-                            .getVersion() );
-
-                    return Streams.mapWithIndex( entry.getValue().getIds().stream(),
-                            ( associationEntityKeyId, index ) -> {
-
-                                EntityDataKey associationEntityDataKey = new EntityDataKey( associationEntitySetId,
-                                        associationEntityKeyId );
-                                DataEdge dataEdge = associations.get( associationEntitySetId )
-                                        .get( Long.valueOf( index ).intValue() );
-
-                                return Stream.<Triple<EntityDataKey, OffsetDateTime, Map<String, Object>>>of(
-                                        Triple.of( dataEdge.getSrc(),
-                                                writeDateTime,
-                                                ImmutableMap.of( "association",
-                                                        associationEntityDataKey,
-                                                        "neighbor",
-                                                        dataEdge.getDst(),
-                                                        "isSrc",
-                                                        true ) ),
-                                        Triple.of( dataEdge.getDst(),
-                                                writeDateTime,
-                                                ImmutableMap.of( "association",
-                                                        associationEntityDataKey,
-                                                        "neighbor",
-                                                        dataEdge.getSrc(),
-                                                        "isSrc",
-                                                        false ) ),
-                                        Triple.of( associationEntityDataKey,
-                                                writeDateTime,
-                                                ImmutableMap.of( "src",
-                                                        dataEdge.getSrc(),
-                                                        "dst",
-                                                        dataEdge.getDst() ) ) );
-                            } );
-                } ).flatMap( Function.identity() ).map( triple -> new AuditableEvent(
-                        currentUserId,
-                        new AclKey( triple.getLeft().getEntitySetId() ),
-                        AuditEventType.ASSOCIATE_ENTITIES,
-                        "Create associations between entities using DataApi.createAssociations",
-                        Optional.of( ImmutableSet.of( triple.getLeft().getEntityKeyId() ) ),
-                        triple.getRight(),
-                        triple.getMiddle(),
-                        Optional.empty()
-                ) );
-
-        recordEvents( Stream.concat( associationEntitiesCreated, neighborMappingsCreated )
-                .collect( Collectors.toList() ) );
+                    List<UUID> ids = entry.getValue().getIds();
+                    List<DataEdge> dataEdges = associations.get( associationEntitySetId );
+
+                    final var batch = new CompactAssociationAuditBatch(
+                            currentUserId,
+                            "Create associations between entities using DataApi.createAssociations",
+                            getDateTimeFromLong( entry.getValue().getEdgeWriteEvent().getVersion() ),
+                            associationEntitySetId,
+                            ids.size() );
+                    for ( int i = 0; i < ids.size(); i++ ) {
+                        batch.add( dataEdges.get( i ).getSrc(), dataEdges.get( i ).getDst(), ids.get( i ) );
+                    }
+                    return batch;
+                } )
+                .collect( Collectors.toList() );
+
+        recordEvents( associationEntitiesCreated.collect( Collectors.toList() ) );
+        recordAssociationEvents( neighborMappingsCreated );
+        timer.split( DataRequestPhase.AUDIT );
+
+        return associationIds;
+    }
+
+    /**
+     * Same as {@link #createAssociations(ListMultimap)}, but reads the request body incrementally and creates the
+     * associations of each association entity set in chunks of {@code chunkSize}.
+     */
+    @Timed
+    @PostMapping(
+            path = "/" + ASSOCIATION + "/" + INGEST,
+            consumes = MediaType.APPLICATION_JSON_VALUE )
+    public ListMultimap<UUID, UUID> ingestAssociations(
+            @RequestParam( value = CHUNK_SIZE, defaultValue = DEFAULT_CHUNK_SIZE ) int chunkSize,
+            HttpServletRequest request ) throws IOException {
+        final ListMultimap<UUID, UUID> associationIds = ArrayListMultimap.create();
+        jsonChunkReader.readObjectOfArrays(
+                request.getInputStream(),
+                new TypeReference<DataEdge>() {},
+                chunkSize,
+                ( associationEntitySetId, dataEdges ) -> {
+                    final ListMultimap<UUID, DataEdge> associations = ArrayListMultimap.create();
+                    associations.putAll( associationEntitySetId, dataEdges );
+                    return writeAssociations( associations );
+                }
+        ).forEach( associationIds::putAll );
 
         return associationIds;
     }
@@ -555,65 +983,129 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
 
         final Map<UUID, PropertyType> authorizedPropertyTypes = edmService
                 .getPropertyTypesAsMap( ImmutableSet.copyOf( requiredPropertyTypes.values() ) );
-        return associations.entrySet().stream().mapToInt( association -> {
-            final UUID entitySetId = association.getKey();
+        final int parallelism = getIntParameter(
+                PARALLELISM,
+                ParallelEntitySetWriter.DEFAULT_PARALLELISM,
+                ParallelEntitySetWriter.MAX_PARALLELISM );
+        return parallelEntitySetWriter.sum( associations.keySet(), parallelism, entitySetId -> {
+            final var association = associations.get( entitySetId );
             if ( partial ) {
                 return dgm.partialReplaceEntities( entitySetId,
-                        transformValues( association.getValue(), DataEdge::getData ),
+                        transformValues( association, DataEdge::getData ),
                         authorizedPropertyTypes ).getNumUpdates();
             } else {
 
                 return dgm.replaceEntities( entitySetId,
-                        transformValues( association.getValue(), DataEdge::getData ),
+                        transformValues( association, DataEdge::getData ),
                         authorizedPropertyTypes ).getNumUpdates();
             }
-        } ).sum();
+        } );
     }
 
     @Timed
     @Override
     @PostMapping( value = { "/", "" } )
     public DataGraphIds createEntityAndAssociationData( @RequestBody DataGraph data ) {
+        return writeDataGraph( data, count -> {}, count -> {} );
+    }
+
+    /**
+     * Queues the same write as {@link #createEntityAndAssociationData(DataGraph)} as a background job and returns the
+     * id of the job right away. Its progress and result can be polled with {@link #getDataGraphJobStatus(UUID)}.
+     */
+    @Timed
+    @PostMapping( value = "/" + JOB, consumes = MediaType.APPLICATION_JSON_VALUE )
+    public UUID submitEntityAndAssociationData( @RequestBody DataGraph data ) {
+        return dataGraphJobService.submit(
+                spm.getCurrentUserId(),
+                requestBodyBytes( data ),
+                progress -> writeDataGraph( data, progress::entitiesWritten, progress::associationsWritten ) );
+    }
+
+    @Timed
+    @GetMapping( value = "/" + JOB + "/" + JOB_ID_PATH, produces = MediaType.APPLICATION_JSON_VALUE )
+    public DataGraphJobStatus getDataGraphJobStatus( @PathVariable( JOB_ID ) UUID jobId ) {
+        final DataGraphJobStatus status = dataGraphJobService.getStatus( jobId );
+        if ( status == null ) {
+            throw new BadRequestException( "Unable to find data graph job " + jobId );
+        }
+        if ( !status.getPrincipalId().equals( spm.getCurrentUserId() ) ) {
+            throw new ForbiddenException( "Insufficient permissions to read data graph job " + jobId );
+        }
+        return status;
+    }
+
+    private DataGraphIds writeDataGraph(
+            DataGraph data,
+            IntConsumer onEntitiesWritten,
+            IntConsumer onAssociationsWritten ) {
         final ListMultimap<UUID, UUID> entityKeyIds = ArrayListMultimap.create();
         final ListMultimap<UUID, UUID> associationEntityKeyIds;
 
+        final var timer = dataRequestMetrics.start( "createEntityAndAssociationData" );
+        dataRequestMetrics.recordPayload( "createEntityAndAssociationData",
+                data.getEntities().size() + data.getAssociations().size(),
+                countPropertyValues( data.getEntities().values() ) + countPropertyValues( Collections2
+                        .transform( data.getAssociations().values(), DataAssociation::getData ) ) );
+
         Set<UUID> entitySetIds = getEntitySetIdsFromCollection( data.getAssociations().values(),
                 this::streamEntitySetIds );
         checkPermissionsOnEntitySetIds( entitySetIds, READ_PERMISSION );
 
-        //First create the entities so we have entity key ids to work with
+        //Ensure that we can write association properties before writing any entities.
+        final SetMultimap<UUID, UUID> requiredPropertyTypes = HashMultimap.create();
+        data.getAssociations().entries().forEach( entry -> requiredPropertyTypes
+                .putAll( entry.getKey(), entry.getValue().getData().keySet() ) );
+        accessCheck( aclKeysForAccessCheck( requiredPropertyTypes, WRITE_PERMISSION ) );
+
+        final Map<UUID, Map<UUID, PropertyType>> authorizedPropertyTypesByEntitySet = requestAuthorizationCache
+                .getAuthorizedPropertiesOnEntitySets( data.getAssociations().keySet(), WRITE_PERMISSION );
+        timer.split( DataRequestPhase.AUTHORIZATION );
+
+        //First create the entities so we have entity key ids to work with. Their phases are broken down further in the
+        //createEntities metrics.
         Multimaps.asMap( data.getEntities() )
-                .forEach( ( entitySetId, entities ) ->
-                        entityKeyIds.putAll( entitySetId, createEntities( entitySetId, entities ) ) );
+                .forEach( ( entitySetId, entities ) -> {
+                    entityKeyIds.putAll( entitySetId, writeEntities( entitySetId, entities ) );
+                    onEntitiesWritten.accept( entities.size() );
+                } );
+        timer.split( DataRequestPhase.STORAGE );
+        final Map<UUID, UUID[]> entityKeyIdsByEntitySet = Maps
+                .newHashMapWithExpectedSize( entityKeyIds.keySet().size() );
+        Multimaps.asMap( entityKeyIds ).forEach( ( entitySetId, ids ) ->
+                entityKeyIdsByEntitySet.put( entitySetId, ids.toArray( new UUID[ 0 ] ) ) );
+
         final ListMultimap<UUID, DataEdge> toBeCreated = ArrayListMultimap.create();
         data.getAssociations().asMap()
                 .forEach( ( entitySetId, associations ) -> {
                     for ( DataAssociation association : associations ) {
-                        final UUID srcEntitySetId = association.getSrcEntitySetId();
-                        final UUID srcEntityKeyId = association
-                                .getSrcEntityKeyId()
-                                .orElseGet( () ->
-                                        entityKeyIds.get( srcEntitySetId )
-                                                .get( association.getSrcEntityIndex().get() ) );
-
-                        final UUID dstEntitySetId = association.getDstEntitySetId();
-                        final UUID dstEntityKeyId = association
-                                .getDstEntityKeyId()
-                                .orElseGet( () ->
-                                        entityKeyIds.get( dstEntitySetId )
-                                                .get( association.getDstEntityIndex().get() ) );
-
-                        toBeCreated.put(
-                                entitySetId,
-                                new DataEdge(
-                                        new EntityDataKey( srcEntitySetId, srcEntityKeyId ),
-                                        new EntityDataKey( dstEntitySetId, dstEntityKeyId ),
-                                        association.getData() ) );
+                        final DataEdge dataEdge = new DataEdge(
+                                resolveEntityDataKey(
+                                        association.getSrcEntitySetId(),
+                                        association.getSrcEntityKeyId(),
+                                        association.getSrcEntityIndex(),
+                                        entityKeyIdsByEntitySet ),
+                                resolveEntityDataKey(
+                                        association.getDstEntitySetId(),
+                                        association.getDstEntityKeyId(),
+                                        association.getDstEntityIndex(),
+                                        entityKeyIdsByEntitySet ),
+                                association.getData() );
+
+                        toBeCreated.put( entitySetId, dataEdge );
                     }
                 } );
-        associationEntityKeyIds = createAssociations( toBeCreated );
 
-        /* entity and association creation will be audited by createEntities and createAssociations */
+        edgeEntityTypeValidator.checkAssociationEntityTypes( toBeCreated );
+        timer.split( DataRequestPhase.VALIDATION );
+
+        associationEntityKeyIds = createAndAuditAssociations(
+                toBeCreated,
+                authorizedPropertyTypesByEntitySet,
+                timer );
+        onAssociationsWritten.accept( associationEntityKeyIds.size() );
+
+        /* entity and association creation will be audited by writeEntities and createAndAuditAssociations */
 
         return new DataGraphIds( entityKeyIds, associationEntityKeyIds );
     }
@@ -630,6 +1122,7 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
 
         WriteEvent writeEvent = deletionManager
                 .clearOrDeleteEntitySetIfAuthorized( entitySetId, deleteType, Principals.getCurrentPrincipals() );
+        entitySetCardinalityService.entitiesDeleted( entitySetId );
 
         recordEvent( new AuditableEvent(
                 spm.getCurrentUserId(),
@@ -671,6 +1164,7 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                         entityKeyIds,
                         deleteType,
                         Principals.getCurrentPrincipals() );
+        entitySetCardinalityService.entitiesDeleted( entitySetId );
 
         recordEvent( new AuditableEvent(
                 spm.getCurrentUserId(),
@@ -741,6 +1235,9 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
                 deleteType,
                 Principals.getCurrentPrincipals()
         );
+        entitySetCardinalityService.entitiesDeleted( entitySetId );
+        filter.getSrcEntitySetIds().ifPresent( ids -> ids.forEach( entitySetCardinalityService::entitiesDeleted ) );
+        filter.getDstEntitySetIds().ifPresent( ids -> ids.forEach( entitySetCardinalityService::entitiesDeleted ) );
 
         recordEvent( new AuditableEvent(
                 spm.getCurrentUserId(),
@@ -758,6 +1255,192 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
 
     }
 
+    /**
+     * Plans a delete of the entities of the filter together with their neighbors in its src/dst entity sets and the
+     * associations connecting them, and returns the number of entities the plan touches in each entity set. Unless
+     * {@code dryRun} is false, nothing is deleted. Otherwise the planned entities are deleted, without traversing the
+     * neighborhood a second time. Src/dst entity sets that can't be read are listed as skipped and make the delete
+     * fail with a 403 instead of leaving their neighbors behind.
+     */
+    @Timed
+    @PostMapping( path = { "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + NEIGHBORS + "/" + PLAN } )
+    public NeighborDeletePlanSummary planDeleteEntitiesAndNeighbors(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestBody EntityNeighborsFilter filter,
+            @RequestParam( value = TYPE ) DeleteType deleteType,
+            @RequestParam( value = DRY_RUN, defaultValue = "true" ) boolean dryRun ) {
+        ensureEntitySetCanBeWritten( entitySetId );
+
+        final EntitySet entitySet = entitySetService.getEntitySet( entitySetId );
+        checkState( entitySet != null, "Could not find entity set with id: %s", entitySetId );
+        if ( entitySet.isLinking() ) {
+            throw new BadRequestException( "Cannot delete entities of linking entity set " + entitySetId );
+        }
+
+        final Set<Principal> principals = Principals.getCurrentPrincipals();
+        final NeighborDeletePlan plan = neighborDeletePlanner.plan( entitySetId, filter, principals );
+        if ( dryRun ) {
+            return plan.summarize( true, null );
+        }
+
+        ensureEntitySetsCanBeWritten( Sets.union( plan.getNeighborEntityKeyIds().keySet(),
+                plan.getAssociationEntityKeyIds().keySet() ) );
+
+        final UUID userId = spm.getCurrentUserId();
+        final int numUpdates = neighborDeletePlanner.execute( plan, ( deleteEntitySetId, entityKeyIds ) -> {
+            final WriteEvent writeEvent = deletionManager.clearOrDeleteEntitiesIfAuthorized(
+                    deleteEntitySetId,
+                    entityKeyIds,
+                    deleteType,
+                    principals );
+            entitySetCardinalityService.entitiesDeleted( deleteEntitySetId );
+
+            recordEvent( new AuditableEvent(
+                    userId,
+                    new AclKey( deleteEntitySetId ),
+                    deleteEntitySetId.equals( entitySetId )
+                            ? AuditEventType.DELETE_ENTITY_AND_NEIGHBORHOOD
+                            : AuditEventType.DELETE_ENTITIES,
+                    "Entities deleted using delete type " + deleteType.toString()
+                            + " through DataApi.planDeleteEntitiesAndNeighbors",
+                    Optional.of( entityKeyIds ),
+                    ImmutableMap.of( "entitySetId", entitySetId ),
+                    getDateTimeFromLong( writeEvent.getVersion() ),
+                    Optional.empty()
+            ) );
+
+            return writeEvent;
+        } );
+
+        return plan.summarize( false, numUpdates );
+    }
+
+    /**
+     * Queues the same delete as {@link #deleteAllEntitiesFromEntitySet(UUID, DeleteType)} as a background job that
+     * deletes the entities of the entity set in batches of {@code batchSize}, at no more than {@code rowsPerSecond}
+     * entities per second. Each batch is authorized and audited on its own, but a caller without the permission the
+     * delete needs on the entity set gets a 403 before the job is queued. Progress can be polled with
+     * {@link #getDeletionJobStatus(UUID)}.
+     */
+    @Timed
+    @DeleteMapping( path = { "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + ALL + "/" + JOB } )
+    public UUID submitDeleteAllEntitiesFromEntitySet(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = TYPE ) DeleteType deleteType,
+            @RequestParam( value = BATCH_SIZE, required = false ) Integer batchSize,
+            @RequestParam( value = ROWS_PER_SECOND, required = false ) Double rowsPerSecond ) {
+        ensureEntitySetCanBeWritten( entitySetId );
+        ensureDeletePermissions( ImmutableSet.of( entitySetId ), deleteType );
+
+        final EntitySet entitySet = entitySetService.getEntitySet( entitySetId );
+        checkState( entitySet != null, "Could not find entity set with id: %s", entitySetId );
+
+        final UUID userId = spm.getCurrentUserId();
+        final Set<Principal> principals = Principals.getCurrentPrincipals();
+
+        return throttledDeletionService.deleteAllEntities(
+                userId,
+                entitySet,
+                batchSize == null ? ThrottledDeletionService.DEFAULT_BATCH_SIZE : batchSize,
+                rowsPerSecond,
+                batch -> {
+                    final Set<UUID> entityKeyIds = new HashSet<>( batch );
+                    final WriteEvent writeEvent = deletionManager.clearOrDeleteEntitiesIfAuthorized(
+                            entitySetId,
+                            entityKeyIds,
+                            deleteType,
+                            principals );
+                    entitySetCardinalityService.entitiesDeleted( entitySetId );
+
+                    recordEvent( new AuditableEvent(
+                            userId,
+                            new AclKey( entitySetId ),
+                            AuditEventType.DELETE_ENTITIES,
+                            "Entities deleted using delete type " + deleteType.toString()
+                                    + " through DataApi.submitDeleteAllEntitiesFromEntitySet",
+                            Optional.of( entityKeyIds ),
+                            ImmutableMap.of(),
+                            getDateTimeFromLong( writeEvent.getVersion() ),
+                            Optional.empty()
+                    ) );
+
+                    return writeEvent.getNumUpdates();
+                } );
+    }
+
+    /**
+     * Queues the same delete as {@link #deleteEntitiesAndNeighbors(UUID, EntityNeighborsFilter, DeleteType)} as a
+     * throttled background job, in batches of {@code batchSize} entities of the filter. The permission the delete
+     * needs is checked on the entity set and its src/dst entity sets before the job is queued.
+     */
+    @Timed
+    @PostMapping( path = { "/" + ENTITY_SET + "/" + SET_ID_PATH + "/" + NEIGHBORS + "/" + JOB } )
+    public UUID submitDeleteEntitiesAndNeighbors(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestBody EntityNeighborsFilter filter,
+            @RequestParam( value = TYPE ) DeleteType deleteType,
+            @RequestParam( value = BATCH_SIZE, required = false ) Integer batchSize,
+            @RequestParam( value = ROWS_PER_SECOND, required = false ) Double rowsPerSecond ) {
+        ensureEntitySetCanBeWritten( entitySetId );
+
+        final UUID userId = spm.getCurrentUserId();
+        final Set<Principal> principals = Principals.getCurrentPrincipals();
+        final Set<UUID> srcEntitySetIds = filter.getSrcEntitySetIds().orElse( ImmutableSet.of() );
+        final Set<UUID> dstEntitySetIds = filter.getDstEntitySetIds().orElse( ImmutableSet.of() );
+        ensureDeletePermissions( ImmutableSet.<UUID>builder()
+                .add( entitySetId )
+                .addAll( srcEntitySetIds )
+                .addAll( dstEntitySetIds )
+                .build(), deleteType );
+
+        return throttledDeletionService.deleteEntities(
+                userId,
+                entitySetId,
+                filter.getEntityKeyIds(),
+                batchSize == null ? ThrottledDeletionService.DEFAULT_BATCH_SIZE : batchSize,
+                rowsPerSecond,
+                batch -> {
+                    final Set<UUID> entityKeyIds = new HashSet<>( batch );
+                    final WriteEvent writeEvent = deletionManager.clearOrDeleteEntitiesAndNeighborsIfAuthorized(
+                            entitySetId,
+                            entityKeyIds,
+                            srcEntitySetIds,
+                            dstEntitySetIds,
+                            deleteType,
+                            principals );
+                    entitySetCardinalityService.entitiesDeleted( entitySetId );
+                    srcEntitySetIds.forEach( entitySetCardinalityService::entitiesDeleted );
+                    dstEntitySetIds.forEach( entitySetCardinalityService::entitiesDeleted );
+
+                    recordEvent( new AuditableEvent(
+                            userId,
+                            new AclKey( entitySetId ),
+                            AuditEventType.DELETE_ENTITY_AND_NEIGHBORHOOD,
+                            "Entities and all neighbors deleted using delete type " + deleteType.toString()
+                                    + " through DataApi.submitDeleteEntitiesAndNeighbors",
+                            Optional.of( entityKeyIds ),
+                            ImmutableMap.of(),
+                            getDateTimeFromLong( writeEvent.getVersion() ),
+                            Optional.empty()
+                    ) );
+
+                    return writeEvent.getNumUpdates();
+                } );
+    }
+
+    @Timed
+    @GetMapping( value = "/" + JOB + "/" + DELETE + "/" + JOB_ID_PATH, produces = MediaType.APPLICATION_JSON_VALUE )
+    public DeletionJobStatus getDeletionJobStatus( @PathVariable( JOB_ID ) UUID jobId ) {
+        final DeletionJobStatus status = throttledDeletionService.getStatus( jobId );
+        if ( status == null ) {
+            throw new BadRequestException( "Unable to find deletion job " + jobId );
+        }
+        if ( !status.getPrincipalId().equals( spm.getCurrentUserId() ) ) {
+            throw new ForbiddenException( "Insufficient permissions to read deletion job " + jobId );
+        }
+        return status;
+    }
+
     @Timed
     @Override
     @RequestMapping(
@@ -809,17 +1492,31 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         return replaceEntityInEntitySet( entitySetId, entityKeyId, entity );
     }
 
-    @Timed
     @Override
+    public long getEntitySetSize( UUID entitySetId ) {
+        return getEntitySetSize( entitySetId, false );
+    }
+
+    /**
+     * If {@code estimate} is true, the size is answered from counts kept by {@link EntitySetCardinalityService}
+     * instead of counting the entity set, which for linking entity sets is an estimate of the distinct count of linking
+     * ids.
+     */
+    @Timed
     @RequestMapping(
             path = { "/" + SET_ID_PATH + "/" + COUNT },
             method = RequestMethod.GET )
-    public long getEntitySetSize( @PathVariable( ENTITY_SET_ID ) UUID entitySetId ) {
+    public long getEntitySetSize(
+            @PathVariable( ENTITY_SET_ID ) UUID entitySetId,
+            @RequestParam( value = ESTIMATE, defaultValue = "false" ) boolean estimate ) {
         ensureReadAccess( new AclKey( entitySetId ) );
 
+        final EntitySet entitySet = entitySetService.getEntitySet( entitySetId );
+        checkState( entitySet != null, "Could not find entity set with id: %s", entitySetId );
+
         // If entityset is linking: should return distinct count of entities corresponding to the linking entity set,
         // which is the distinct count of linking_id s
-        return entitySetService.getEntitySetSize( entitySetId );
+        return entitySetCardinalityService.getEntitySetSize( entitySet, !estimate );
     }
 
     @Timed
@@ -843,9 +1540,10 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             final Map<UUID, Map<UUID, PropertyType>> authorizedPropertyTypes = authzHelper
                     .getAuthorizedPropertiesByNormalEntitySets( entitySet, EnumSet.of( Permission.READ ) );
 
-            return dgm.getLinkingEntity( entitySet.getLinkedEntitySets(), entityKeyId, authorizedPropertyTypes );
+            return linkingEntitySetReader
+                    .getLinkingEntity( entityKeyId, authorizedPropertyTypes, getReadParallelism() );
         } else {
-            final Map<UUID, PropertyType> authorizedPropertyTypes = authzHelper
+            final Map<UUID, PropertyType> authorizedPropertyTypes = requestAuthorizationCache
                     .getAuthorizedPropertyTypes( entitySetId, READ_PERMISSION );
             return dgm.getEntity( entitySetId, entityKeyId, authorizedPropertyTypes );
         }
@@ -886,10 +1584,8 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
             final var propertyTypeFqn = authorizedPropertyTypes.values().iterator().next().get( propertyTypeId )
                     .getType();
 
-            return dgm.getLinkingEntity(
-                    entitySet.getLinkedEntitySets(),
-                    entityKeyId,
-                    authorizedPropertyTypes )
+            return linkingEntitySetReader
+                    .getLinkingEntity( entityKeyId, authorizedPropertyTypes, getReadParallelism() )
                     .get( propertyTypeFqn );
         } else {
             ensureReadAccess( new AclKey( entitySetId, propertyTypeId ) );
@@ -930,7 +1626,18 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         final var entityKeyIdsOfEntitySets = normalEntitySetIds.stream()
                 .collect( Collectors.toMap( esId -> esId, esId -> entityKeyIds ) );
 
-        return dgm.getLinkedEntitySetBreakDown( entityKeyIdsOfEntitySets, authorizedPropertyTypesOfEntitySets );
+        return linkingEntitySetReader.getLinkedEntitySetBreakDown(
+                entityKeyIdsOfEntitySets,
+                authorizedPropertyTypesOfEntitySets,
+                getReadParallelism() );
+    }
+
+    /**
+     * Records association audit batches, keeping them compact until the audit writer expands them if auditing is
+     * asynchronous.
+     */
+    private void recordAssociationEvents( List<CompactAssociationAuditBatch> batches ) {
+        auditingManager.recordAssociationBatches( batches );
     }
 
     @NotNull
@@ -939,6 +1646,88 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         return auditingManager;
     }
 
+    /**
+     * Runs a bulk write at most once per {@link #IDEMPOTENCY_KEY} header value, returning the result of the completed
+     * write when a client retries it. Without the header the write always runs.
+     */
+    private <T> T idempotently( String operation, Object request, TypeReference<T> resultType, Supplier<T> write ) {
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        final String idempotencyKey = ( attributes instanceof ServletRequestAttributes )
+                ? ( (ServletRequestAttributes) attributes ).getRequest().getHeader( IDEMPOTENCY_KEY )
+                : null;
+
+        return idempotentWriteService
+                .execute( idempotencyKey, spm.getCurrentUserId(), operation, request, resultType, write );
+    }
+
+    /**
+     * Returns the size of the body of the current request, measuring it by serializing {@code body} if the client
+     * didn't send a content length.
+     */
+    private static long requestBodyBytes( Object body ) {
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        if ( attributes instanceof ServletRequestAttributes ) {
+            final long contentLength = ( (ServletRequestAttributes) attributes ).getRequest().getContentLengthLong();
+            if ( contentLength >= 0 ) {
+                return contentLength;
+            }
+        }
+
+        final var out = new CountingOutputStream( ByteStreams.nullOutputStream() );
+        try {
+            ObjectMappers.getJsonMapper().writeValue( out, body );
+        } catch ( IOException e ) {
+            throw new IllegalStateException( "Unable to measure request body.", e );
+        }
+        return out.getCount();
+    }
+
+    /**
+     * Reads the optional {@link #PARALLELISM} request parameter, which caps how many normal entity sets of a linking
+     * entity set are read at once. It is read from the current request, since the parameter is shared by read
+     * endpoints whose signatures are fixed by {@link DataApi}.
+     */
+    private static int getReadParallelism() {
+        return getIntParameter(
+                PARALLELISM,
+                LinkingEntitySetReader.DEFAULT_PARALLELISM,
+                LinkingEntitySetReader.MAX_PARALLELISM );
+    }
+
+    /**
+     * Reads an optional integer parameter of the current request, for endpoints whose signature is fixed by
+     * {@link DataApi}. The value is clamped to between 1 and {@code max}.
+     */
+    private static int getIntParameter( String name, int defaultValue, int max ) {
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        if ( attributes instanceof ServletRequestAttributes ) {
+            final var value = ( (ServletRequestAttributes) attributes ).getRequest().getParameter( name );
+            if ( StringUtils.isNotBlank( value ) ) {
+                try {
+                    return Math.max( 1, Math.min( Integer.parseInt( value ), max ) );
+                } catch ( NumberFormatException e ) {
+                    throw new BadRequestException( "Invalid " + name + " parameter: " + value );
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int countPropertyValues( Collection<? extends Map<UUID, ? extends Collection<?>>> entities ) {
+        return entities.stream()
+                .flatMap( entity -> entity.values().stream() )
+                .mapToInt( Collection::size )
+                .sum();
+    }
+
+    private void authenticateWithToken( String token ) {
+        if ( StringUtils.isNotBlank( token ) ) {
+            Authentication authentication = authProvider
+                    .authenticate( PreAuthenticatedAuthenticationJsonWebToken.usingToken( token ) );
+            SecurityContextHolder.getContext().setAuthentication( authentication );
+        }
+    }
+
     /**
      * Methods for setting http response header
      */
@@ -996,6 +1785,16 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         return OffsetDateTime.ofInstant( Instant.ofEpochMilli( epochTime ), ZoneId.systemDefault() );
     }
 
+    private static EntityDataKey resolveEntityDataKey(
+            UUID entitySetId,
+            Optional<UUID> entityKeyId,
+            Optional<Integer> entityIndex,
+            Map<UUID, UUID[]> entityKeyIdsByEntitySet ) {
+        return new EntityDataKey(
+                entitySetId,
+                entityKeyId.orElseGet( () -> entityKeyIdsByEntitySet.get( entitySetId )[ entityIndex.get() ] ) );
+    }
+
     private Stream<UUID> streamEntitySetIds( DataAssociation association ) {
         return Stream.of( association.getSrcEntitySetId(), association.getDstEntitySetId() );
     }
@@ -1022,6 +1821,17 @@ public class DataController implements DataApi, AuthorizingComponent, AuditingCo
         accessCheck( entitySetIds.stream().collect( Collectors.toMap( AclKey::new, id -> permissions ) ) );
     }
 
+    /**
+     * Throws a {@link ForbiddenException} unless the caller has the permission that a delete of type
+     * {@code deleteType} needs on every one of {@code entitySetIds}, so that a delete job isn't queued for a caller
+     * whose batches would all be refused.
+     */
+    private void ensureDeletePermissions( Set<UUID> entitySetIds, DeleteType deleteType ) {
+        final EnumSet<Permission> permissions = deleteType == DeleteType.Hard ? OWNER_PERMISSION : WRITE_PERMISSION;
+        ensureEntitySetsCanBeWritten( entitySetIds );
+        accessCheck( entitySetIds.stream().collect( Collectors.toMap( AclKey::new, id -> permissions ) ) );
+    }
+
     private void ensureEntitySetCanBeWritten( UUID entitySetId ) {
         ensureEntitySetsCanBeWritten( ImmutableSet.of( entitySetId ) );
     }
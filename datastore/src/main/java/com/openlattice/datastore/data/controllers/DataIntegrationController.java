@@ -32,6 +32,8 @@ import com.openlattice.data.DataIntegrationApi;
 import com.openlattice.data.EntityKey;
 import com.openlattice.data.integration.S3EntityData;
 import com.openlattice.data.storage.aws.AwsDataSinkService;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.edm.type.PropertyType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -53,7 +55,7 @@ import static com.openlattice.authorization.EdmAuthorizationHelper.aclKeysForAcc
 
 @RestController
 @RequestMapping( DataIntegrationApi.CONTROLLER )
-public class DataIntegrationController implements DataIntegrationApi, AuthorizingComponent {
+public class DataIntegrationController implements DataIntegrationApi, RequestScopedAuthorizingComponent {
 
     @Inject
     private DataGraphManager dgm;
@@ -67,11 +69,19 @@ public class DataIntegrationController implements DataIntegrationApi, Authorizin
     @Inject
     private EdmAuthorizationHelper authzHelper;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Override
     public AuthorizationManager getAuthorizationManager() {
         return authz;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @Override
     public List<String> generatePresignedUrls( Collection<S3EntityData> data ) {
         throw new UnsupportedOperationException( "This shouldn't be invoked. Just here for the interface and efficiency" );
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.data.export;
+
+import com.openlattice.data.EntitySetData;
+import com.openlattice.edm.type.PropertyType;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes entity set data in the Arrow IPC streaming format.
+ * <p>
+ * Every property becomes a nullable list column, since properties are multi-valued, whose element type is derived
+ * from the datatype of the property type. Rows are written in record batches of {@link #BATCH_SIZE} entities, so only
+ * a single batch is held in off-heap memory at a time.
+ * <p>
+ * Off-heap memory is bounded twice: all exports on this node share at most {@code maxAllocationBytes}, and each export
+ * gets its own child allocator of at most {@code maxExportAllocationBytes}, which is closed when the export is done.
+ * Cells whose values can't be converted to the type of their column are written as null, so that a single bad value
+ * doesn't cut off the response.
+ */
+public class ArrowEntitySetDataWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger( ArrowEntitySetDataWriter.class );
+
+    public static final String    ARROW_STREAM_VALUE = "application/vnd.apache.arrow.stream";
+    public static final MediaType ARROW_STREAM       = MediaType.valueOf( ARROW_STREAM_VALUE );
+    public static final String    FILE_EXTENSION     = "arrow";
+
+    public static final long DEFAULT_MAX_ALLOCATION_BYTES        = 1024L * 1024 * 1024;
+    public static final long DEFAULT_MAX_EXPORT_ALLOCATION_BYTES = 256L * 1024 * 1024;
+
+    static final int BATCH_SIZE = 4_096;
+
+    private static final String   LIST_ELEMENT_NAME = "$data$";
+    private static final ArrowType UTF8             = new ArrowType.Utf8();
+
+    private final BufferAllocator rootAllocator;
+    private final long            maxExportAllocationBytes;
+
+    public ArrowEntitySetDataWriter( long maxAllocationBytes, long maxExportAllocationBytes ) {
+        this.rootAllocator = new RootAllocator( maxAllocationBytes );
+        this.maxExportAllocationBytes = maxExportAllocationBytes;
+    }
+
+    /**
+     * @param entitySetData The entity set data to write.
+     * @param propertyTypesByFqn Property types of the selected properties keyed by their full qualified name. Columns
+     * without a property type, such as entity metadata, are written as strings.
+     * @return The number of entities written.
+     */
+    public long write(
+            EntitySetData<FullQualifiedName> entitySetData,
+            Map<String, PropertyType> propertyTypesByFqn,
+            OutputStream out ) throws IOException {
+        final var columns = new ArrayList<FullQualifiedName>( entitySetData.getColumnTitles().size() );
+        final var fields = new ArrayList<Field>( entitySetData.getColumnTitles().size() );
+
+        entitySetData.getColumnTitles().forEach( title -> {
+            final var propertyType = propertyTypesByFqn.get( title );
+            final var elementType = ( propertyType == null ) ? UTF8 : getArrowType( propertyType.getDatatype() );
+            columns.add( new FullQualifiedName( title ) );
+            fields.add( new Field(
+                    title,
+                    FieldType.nullable( new ArrowType.List() ),
+                    List.of( new Field( LIST_ELEMENT_NAME, FieldType.nullable( elementType ), null ) ) ) );
+        } );
+
+        long count = 0;
+        final int[] nullCellsByColumn = new int[ columns.size() ];
+        try ( BufferAllocator allocator = rootAllocator
+                .newChildAllocator( "entity-set-export", 0, maxExportAllocationBytes );
+                VectorSchemaRoot root = VectorSchemaRoot.create( new Schema( fields ), allocator );
+                ArrowStreamWriter writer = new ArrowStreamWriter(
+                        root,
+                        new DictionaryProvider.MapDictionaryProvider(),
+                        out ) ) {
+            final var vectors = new ArrayList<ListVector>( columns.size() );
+            root.getFieldVectors().forEach( vector -> vectors.add( (ListVector) vector ) );
+
+            writer.start();
+            root.allocateNew();
+
+            int row = 0;
+            for ( Map<FullQualifiedName, Set<Object>> entity : entitySetData.getEntities() ) {
+                for ( int i = 0; i < columns.size(); ++i ) {
+                    final Set<Object> values = entity.get( columns.get( i ) );
+                    if ( values != null && !writeCell( vectors.get( i ), row, values ) ) {
+                        ++nullCellsByColumn[ i ];
+                    }
+                }
+
+                ++count;
+                if ( ++row == BATCH_SIZE ) {
+                    root.setRowCount( row );
+                    writer.writeBatch();
+                    root.allocateNew();
+                    row = 0;
+                }
+            }
+
+            if ( row > 0 ) {
+                root.setRowCount( row );
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+
+        for ( int i = 0; i < columns.size(); ++i ) {
+            if ( nullCellsByColumn[ i ] > 0 ) {
+                logger.warn( "Wrote {} cells of column {} as null, since their values could not be converted to {}.",
+                        nullCellsByColumn[ i ],
+                        columns.get( i ).getFullQualifiedNameAsString(),
+                        fields.get( i ).getChildren().get( 0 ).getType() );
+            }
+        }
+        logger.info( "Streamed {} entities as arrow record batches.", count );
+        return count;
+    }
+
+    @Override
+    public void close() {
+        rootAllocator.close();
+    }
+
+    /**
+     * Converts all values of a cell before writing any of them, so that a cell with a value that can't be converted is
+     * left unset, which is null, instead of half written.
+     *
+     * @return Whether the cell was written.
+     */
+    private static boolean writeCell( ListVector vector, int row, Set<Object> values ) {
+        final var child = (FieldVector) vector.getDataVector();
+
+        final var converted = new ArrayList<>( values.size() );
+        try {
+            for ( Object value : values ) {
+                converted.add( convert( child, value ) );
+            }
+        } catch ( RuntimeException e ) {
+            logger.debug( "Unable to convert values {} for arrow vector {}.", values, child.getName(), e );
+            return false;
+        }
+
+        final int offset = vector.startNewValue( row );
+        for ( int i = 0; i < converted.size(); ++i ) {
+            setValue( child, offset + i, converted.get( i ) );
+        }
+        vector.endValue( row, converted.size() );
+        return true;
+    }
+
+    private static Object convert( FieldVector vector, Object value ) {
+        if ( vector instanceof BitVector ) {
+            return ( value instanceof Boolean ) ? value : Boolean.parseBoolean( value.toString() );
+        } else if ( vector instanceof SmallIntVector || vector instanceof IntVector
+                || vector instanceof BigIntVector ) {
+            return toLong( value );
+        } else if ( vector instanceof Float8Vector ) {
+            return ( value instanceof Number )
+                    ? ( (Number) value ).doubleValue()
+                    : Double.parseDouble( value.toString() );
+        } else if ( vector instanceof DateDayVector ) {
+            final LocalDate date = ( value instanceof LocalDate )
+                    ? (LocalDate) value
+                    : LocalDate.parse( value.toString() );
+            return date.toEpochDay();
+        } else if ( vector instanceof TimeStampMilliTZVector ) {
+            final OffsetDateTime dateTime = ( value instanceof OffsetDateTime )
+                    ? (OffsetDateTime) value
+                    : OffsetDateTime.parse( value.toString() );
+            return dateTime.toInstant().toEpochMilli();
+        } else {
+            return value.toString().getBytes( StandardCharsets.UTF_8 );
+        }
+    }
+
+    private static void setValue( FieldVector vector, int index, Object converted ) {
+        if ( vector instanceof BitVector ) {
+            ( (BitVector) vector ).setSafe( index, (Boolean) converted ? 1 : 0 );
+        } else if ( vector instanceof SmallIntVector ) {
+            ( (SmallIntVector) vector ).setSafe( index, (short) (long) converted );
+        } else if ( vector instanceof IntVector ) {
+            ( (IntVector) vector ).setSafe( index, (int) (long) converted );
+        } else if ( vector instanceof BigIntVector ) {
+            ( (BigIntVector) vector ).setSafe( index, (long) converted );
+        } else if ( vector instanceof Float8Vector ) {
+            ( (Float8Vector) vector ).setSafe( index, (double) converted );
+        } else if ( vector instanceof DateDayVector ) {
+            ( (DateDayVector) vector ).setSafe( index, (int) (long) converted );
+        } else if ( vector instanceof TimeStampMilliTZVector ) {
+            ( (TimeStampMilliTZVector) vector ).setSafe( index, (long) converted );
+        } else {
+            ( (VarCharVector) vector ).setSafe( index, (byte[]) converted );
+        }
+    }
+
+    private static long toLong( Object value ) {
+        return ( value instanceof Number ) ? ( (Number) value ).longValue() : Long.parseLong( value.toString() );
+    }
+
+    private static ArrowType getArrowType( EdmPrimitiveTypeKind datatype ) {
+        switch ( datatype ) {
+            case Boolean:
+                return new ArrowType.Bool();
+            case Byte:
+            case SByte:
+            case Int16:
+                return new ArrowType.Int( 16, true );
+            case Int32:
+                return new ArrowType.Int( 32, true );
+            case Int64:
+                return new ArrowType.Int( 64, true );
+            case Single:
+            case Double:
+            case Decimal:
+                return new ArrowType.FloatingPoint( FloatingPointPrecision.DOUBLE );
+            case Date:
+                return new ArrowType.Date( DateUnit.DAY );
+            case DateTimeOffset:
+                return new ArrowType.Timestamp( TimeUnit.MILLISECOND, "UTC" );
+            default:
+                return UTF8;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.data.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.openlattice.data.EntitySetData;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes entity set data straight to an output stream, one entity at a time, as the underlying iterable produces it.
+ * <p>
+ * Nothing is buffered beyond the current entity and the generator's write buffer, so memory use does not depend on
+ * the size of the entity set. The output stream is flushed every {@link #FLUSH_INTERVAL} entities, which lets the
+ * servlet container send the response with chunked transfer encoding and ties the read rate to the client's read
+ * rate through the blocking servlet output stream.
+ */
+public class EntitySetDataStreamer {
+    private static final Logger logger = LoggerFactory.getLogger( EntitySetDataStreamer.class );
+
+    static final int    FLUSH_INTERVAL          = 1_000;
+    static final String ARRAY_ELEMENT_SEPARATOR = "|";
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter entityWriter;
+    private final CsvMapper    csvMapper = new CsvMapper();
+
+    public EntitySetDataStreamer( ObjectMapper mapper ) {
+        this.mapper = mapper;
+        this.entityWriter = mapper.writer().without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+    }
+
+    /**
+     * Writes the entities as a single json array.
+     *
+     * @return The number of entities written.
+     */
+    public long writeJson( EntitySetData<FullQualifiedName> entitySetData, OutputStream out ) throws IOException {
+        long count = 0;
+        try ( JsonGenerator generator = mapper.getFactory().createGenerator( out ) ) {
+            generator.writeStartArray();
+            for ( Map<FullQualifiedName, Set<Object>> entity : entitySetData.getEntities() ) {
+                entityWriter.writeValue( generator, entity );
+                if ( ++count % FLUSH_INTERVAL == 0 ) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        logger.info( "Streamed {} entities as json.", count );
+        return count;
+    }
+
+    /**
+     * Writes the entities as csv with a header row built from the column titles of the entity set data. Multiple
+     * values of a property are written to the same cell, separated by {@link #ARRAY_ELEMENT_SEPARATOR}.
+     *
+     * @return The number of entities written.
+     */
+    public long writeCsv( EntitySetData<FullQualifiedName> entitySetData, OutputStream out ) throws IOException {
+        final var columnTitles = entitySetData.getColumnTitles();
+        final var schemaBuilder = CsvSchema.builder().setArrayElementSeparator( ARRAY_ELEMENT_SEPARATOR );
+        columnTitles.forEach( schemaBuilder::addArrayColumn );
+        final var columns = columnTitles.stream().map( FullQualifiedName::new ).toArray( FullQualifiedName[]::new );
+
+        long count = 0;
+        try ( CsvGenerator generator = (CsvGenerator) csvMapper.getFactory().createGenerator( out ) ) {
+            generator.setSchema( schemaBuilder.build().withHeader() );
+            for ( Map<FullQualifiedName, Set<Object>> entity : entitySetData.getEntities() ) {
+                generator.writeStartObject();
+                for ( FullQualifiedName column : columns ) {
+                    final Set<Object> values = entity.get( column );
+                    if ( values != null ) {
+                        generator.writeFieldName( column.getFullQualifiedNameAsString() );
+                        generator.writeStartArray();
+                        for ( Object value : values ) {
+                            generator.writeString( String.valueOf( value ) );
+                        }
+                        generator.writeEndArray();
+                    }
+                }
+                generator.writeEndObject();
+                if ( ++count % FLUSH_INTERVAL == 0 ) {
+                    generator.flush();
+                }
+            }
+        }
+        logger.info( "Streamed {} entities as csv.", count );
+        return count;
+    }
+}
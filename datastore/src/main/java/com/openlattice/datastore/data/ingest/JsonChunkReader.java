@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.data.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openlattice.controllers.exceptions.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Reads large json request bodies incrementally from a token stream and hands them to a callback in chunks of at most
+ * a fixed number of elements, instead of binding the whole body before any of it is processed.
+ * <p>
+ * Only the elements of the current chunk are held in memory, so heap use is bounded by the chunk size rather than the
+ * size of the request body. Since every chunk is handled before the next one is read, a body that turns out to be
+ * malformed or truncated half way through is rejected only after the chunks before it were handled, with a
+ * {@link BadRequestException} that says how many chunks that were.
+ */
+public class JsonChunkReader {
+    private static final Logger logger = LoggerFactory.getLogger( JsonChunkReader.class );
+
+    public static final int MAX_CHUNK_SIZE = 100_000;
+
+    private final ObjectMapper mapper;
+
+    public JsonChunkReader( ObjectMapper mapper ) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Reads a json array of values, e.g. {@code [ {...}, {...} ]}.
+     *
+     * @return The result of the callback for each chunk, in order.
+     */
+    public <V, R> List<R> readArray(
+            InputStream in,
+            TypeReference<V> valueType,
+            int chunkSize,
+            Function<List<V>, R> onChunk ) throws IOException {
+        checkChunkSize( chunkSize );
+        final JavaType type = mapper.getTypeFactory().constructType( valueType );
+        final List<R> results = new ArrayList<>();
+
+        try ( JsonParser parser = mapper.getFactory().createParser( in ) ) {
+            expect( parser.nextToken(), JsonToken.START_ARRAY );
+
+            List<V> chunk = new ArrayList<>( chunkSize );
+            while ( hasNextElement( parser, results.size() ) ) {
+                chunk.add( mapper.readValue( parser, type ) );
+                if ( chunk.size() == chunkSize ) {
+                    results.add( onChunk.apply( chunk ) );
+                    chunk = new ArrayList<>( chunkSize );
+                }
+            }
+            if ( !chunk.isEmpty() ) {
+                results.add( onChunk.apply( chunk ) );
+            }
+        } catch ( JsonProcessingException e ) {
+            throw malformed( e, results.size() );
+        }
+
+        logger.info( "Read json array in {} chunks of up to {} elements.", results.size(), chunkSize );
+        return results;
+    }
+
+    /**
+     * Reads a json object keyed by id, e.g. {@code { "<id>": {...}, "<id>": {...} } }.
+     *
+     * @return The result of the callback for each chunk, in order.
+     */
+    public <V, R> List<R> readObject(
+            InputStream in,
+            TypeReference<V> valueType,
+            int chunkSize,
+            Function<Map<UUID, V>, R> onChunk ) throws IOException {
+        checkChunkSize( chunkSize );
+        final JavaType type = mapper.getTypeFactory().constructType( valueType );
+        final List<R> results = new ArrayList<>();
+
+        try ( JsonParser parser = mapper.getFactory().createParser( in ) ) {
+            expect( parser.nextToken(), JsonToken.START_OBJECT );
+
+            Map<UUID, V> chunk = new LinkedHashMap<>( chunkSize );
+            while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+                final UUID id = readId( parser );
+                parser.nextToken();
+                chunk.put( id, mapper.readValue( parser, type ) );
+                if ( chunk.size() == chunkSize ) {
+                    results.add( onChunk.apply( chunk ) );
+                    chunk = new LinkedHashMap<>( chunkSize );
+                }
+            }
+            expect( parser.currentToken(), JsonToken.END_OBJECT );
+            if ( !chunk.isEmpty() ) {
+                results.add( onChunk.apply( chunk ) );
+            }
+        } catch ( JsonProcessingException e ) {
+            throw malformed( e, results.size() );
+        }
+
+        logger.info( "Read json object in {} chunks of up to {} entries.", results.size(), chunkSize );
+        return results;
+    }
+
+    /**
+     * Reads a json object of arrays keyed by id, e.g. {@code { "<id>": [ {...}, {...} ] } }. The elements of each
+     * array are chunked separately, so a chunk only ever contains elements of a single id.
+     *
+     * @return The result of the callback for each chunk, in order.
+     */
+    public <V, R> List<R> readObjectOfArrays(
+            InputStream in,
+            TypeReference<V> valueType,
+            int chunkSize,
+            BiFunction<UUID, List<V>, R> onChunk ) throws IOException {
+        checkChunkSize( chunkSize );
+        final JavaType type = mapper.getTypeFactory().constructType( valueType );
+        final List<R> results = new ArrayList<>();
+
+        try ( JsonParser parser = mapper.getFactory().createParser( in ) ) {
+            expect( parser.nextToken(), JsonToken.START_OBJECT );
+
+            while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+                final UUID id = readId( parser );
+                expect( parser.nextToken(), JsonToken.START_ARRAY );
+
+                List<V> chunk = new ArrayList<>( chunkSize );
+                while ( hasNextElement( parser, results.size() ) ) {
+                    chunk.add( mapper.readValue( parser, type ) );
+                    if ( chunk.size() == chunkSize ) {
+                        results.add( onChunk.apply( id, chunk ) );
+                        chunk = new ArrayList<>( chunkSize );
+                    }
+                }
+                if ( !chunk.isEmpty() ) {
+                    results.add( onChunk.apply( id, chunk ) );
+                }
+            }
+            expect( parser.currentToken(), JsonToken.END_OBJECT );
+        } catch ( JsonProcessingException e ) {
+            throw malformed( e, results.size() );
+        }
+
+        logger.info( "Read json object of arrays in {} chunks of up to {} elements.", results.size(), chunkSize );
+        return results;
+    }
+
+    /**
+     * Advances to the next element of the current array.
+     *
+     * @return false once the array is closed.
+     */
+    private static boolean hasNextElement( JsonParser parser, int chunksWritten ) throws IOException {
+        final JsonToken token = parser.nextToken();
+        if ( token == null ) {
+            throw new BadRequestException( "Request body ended before the end of an array. " + chunksWritten
+                    + " chunks were already written." );
+        }
+        return token != JsonToken.END_ARRAY;
+    }
+
+    private static BadRequestException malformed( JsonProcessingException e, int chunksWritten ) {
+        logger.info( "Malformed request body after {} chunks were written.", chunksWritten, e );
+        return new BadRequestException( "Malformed request body: " + e.getOriginalMessage() + ". " + chunksWritten
+                + " chunks were already written." );
+    }
+
+    private static UUID readId( JsonParser parser ) throws IOException {
+        try {
+            return UUID.fromString( parser.getCurrentName() );
+        } catch ( IllegalArgumentException e ) {
+            throw new BadRequestException( "Expected an id but found \"" + parser.getCurrentName() + "\"." );
+        }
+    }
+
+    private static void expect( JsonToken actual, JsonToken expected ) {
+        if ( actual != expected ) {
+            throw new BadRequestException( "Malformed request body: expected " + expected + " but found " + actual );
+        }
+    }
+
+    private static void checkChunkSize( int chunkSize ) {
+        if ( chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE ) {
+            throw new BadRequestException( "Chunk size must be between 1 and " + MAX_CHUNK_SIZE + "." );
+        }
+    }
+}
@@ -27,6 +27,8 @@ import com.codahale.metrics.annotation.Timed;
 import com.openlattice.assembler.Assembler;
 import com.openlattice.authorization.*;
 import com.openlattice.authorization.securable.SecurableObjectType;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.directory.MaterializedViewAccount;
 import com.openlattice.directory.PrincipalApi;
 import com.openlattice.directory.UserDirectoryService;
@@ -53,7 +55,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 @RestController
 @RequestMapping( PrincipalApi.CONTROLLER )
-public class PrincipalDirectoryController implements PrincipalApi, AuthorizingComponent {
+public class PrincipalDirectoryController implements PrincipalApi, RequestScopedAuthorizingComponent {
 
     @Inject
     private DbCredentialService dbCredService;
@@ -79,6 +81,9 @@ public class PrincipalDirectoryController implements PrincipalApi, AuthorizingCo
     @Inject
     private Assembler assembler;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Timed
     @Override
     @RequestMapping(
@@ -221,6 +226,11 @@ public class PrincipalDirectoryController implements PrincipalApi, AuthorizingCo
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @Timed
     @Override
     @PostMapping(
@@ -39,6 +39,8 @@ import com.openlattice.authorization.securable.SecurableObjectType;
 import com.openlattice.controllers.exceptions.BadRequestException;
 import com.openlattice.data.PropertyUsageSummary;
 import com.openlattice.data.requests.FileType;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.datastore.services.EdmManager;
 import com.openlattice.datastore.services.EntitySetManager;
 import com.openlattice.edm.*;
@@ -71,7 +73,7 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping( EdmApi.CONTROLLER )
-public class EdmController implements EdmApi, AuthorizingComponent, AuditingComponent {
+public class EdmController implements EdmApi, RequestScopedAuthorizingComponent, AuditingComponent {
 
     @Inject
     private EdmManager modelService;
@@ -97,6 +99,9 @@ public class EdmController implements EdmApi, AuthorizingComponent, AuditingComp
     @Inject
     private AuditingManager auditingManager;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Timed
     @RequestMapping(
             method = RequestMethod.GET,
@@ -849,6 +854,11 @@ public class EdmController implements EdmApi, AuthorizingComponent, AuditingComp
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     private void ensureValidEntityType( EntityType entityType ) {
         Preconditions.checkArgument( modelService.checkPropertyTypesExist( entityType.getProperties() ),
                 "Some properties do not exists" );
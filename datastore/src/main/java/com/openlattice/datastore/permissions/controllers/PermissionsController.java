@@ -33,6 +33,8 @@ import com.openlattice.auditing.AuditingManager;
 import com.openlattice.authorization.*;
 import com.openlattice.controllers.exceptions.BadRequestException;
 import com.openlattice.controllers.exceptions.ForbiddenException;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.organizations.ExternalDatabaseManagementService;
 import com.openlattice.organizations.roles.SecurePrincipalsManager;
 import org.jetbrains.annotations.NotNull;
@@ -52,7 +54,7 @@ import java.util.stream.Stream;
 
 @RestController
 @RequestMapping( PermissionsApi.CONTROLLER )
-public class PermissionsController implements PermissionsApi, AuthorizingComponent, AuditingComponent {
+public class PermissionsController implements PermissionsApi, RequestScopedAuthorizingComponent, AuditingComponent {
     private static final Logger logger = LoggerFactory.getLogger( PermissionsController.class );
 
     @Inject
@@ -70,6 +72,9 @@ public class PermissionsController implements PermissionsApi, AuthorizingCompone
     @Inject
     private HazelcastSecurableObjectResolveTypeService securableObjectResolveTypeService;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Override
     @Timed
     @RequestMapping(
@@ -244,6 +249,11 @@ public class PermissionsController implements PermissionsApi, AuthorizingCompone
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @NotNull
     @Override
     public AuditingManager getAuditingManager() {
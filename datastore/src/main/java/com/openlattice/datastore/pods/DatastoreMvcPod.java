@@ -30,6 +30,7 @@ import com.openlattice.datastore.analysis.controllers.AnalysisController;
 import com.openlattice.datastore.apps.controllers.AppController;
 import com.openlattice.datastore.authorization.controllers.AuthorizationsController;
 import com.openlattice.datastore.data.controllers.DataController;
+import com.openlattice.datastore.data.export.ArrowEntitySetDataWriter;
 import com.openlattice.datastore.directory.controllers.PrincipalDirectoryController;
 import com.openlattice.datastore.edm.controllers.EdmController;
 import com.openlattice.datastore.permissions.controllers.PermissionsController;
@@ -125,6 +126,7 @@ public class DatastoreMvcPod extends WebMvcConfigurationSupport {
                 .mediaType( "csv", CustomMediaType.TEXT_CSV )
                 .mediaType( "json", MediaType.APPLICATION_JSON )
                 .mediaType( "yaml", CustomMediaType.TEXT_YAML )
+                .mediaType( ArrowEntitySetDataWriter.FILE_EXTENSION, ArrowEntitySetDataWriter.ARROW_STREAM )
                 .defaultContentType( MediaType.APPLICATION_JSON );
     }
 
@@ -59,8 +59,12 @@ import com.openlattice.data.serializers.FullQualifiedNameJacksonSerializer;
 import com.openlattice.data.storage.*;
 import com.openlattice.data.storage.aws.AwsDataSinkService;
 import com.openlattice.data.storage.partitions.PartitionManager;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
 import com.openlattice.datastore.configuration.DatastoreConfiguration;
 import com.openlattice.datastore.configuration.ReadonlyDatasourceSupplier;
+import com.openlattice.datastore.data.export.ArrowEntitySetDataWriter;
+import com.openlattice.datastore.data.export.EntitySetDataStreamer;
+import com.openlattice.datastore.data.ingest.JsonChunkReader;
 import com.openlattice.datastore.services.*;
 import com.openlattice.directory.Auth0UserDirectoryService;
 import com.openlattice.directory.LocalUserDirectoryService;
@@ -91,6 +95,7 @@ import com.openlattice.postgres.PostgresTableManager;
 import com.openlattice.postgres.external.ExternalDatabaseConnectionManager;
 import com.openlattice.requests.HazelcastRequestsManager;
 import com.openlattice.requests.RequestQueryService;
+import com.openlattice.scrunchie.search.ElasticsearchTransportClientFactory;
 import com.openlattice.search.PersistentSearchService;
 import com.openlattice.search.SearchService;
 import com.openlattice.subscriptions.PostgresSubscriptionService;
@@ -113,6 +118,7 @@ import org.springframework.context.annotation.Profile;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.util.Optional;
 
 import static com.openlattice.datastore.util.Util.returnAndLog;
 
@@ -193,6 +199,115 @@ public class DatastoreServicesPod {
         return mapper;
     }
 
+    @Bean
+    public EntitySetDataStreamer entitySetDataStreamer() {
+        return new EntitySetDataStreamer( defaultObjectMapper() );
+    }
+
+    @Bean
+    public EntityKeyIdPager entityKeyIdPager() {
+        return new EntityKeyIdPager( rds().getReadOnlyReplica(), entitySetManager() );
+    }
+
+    @Bean
+    public LinkingEntitySetReader linkingEntitySetReader() {
+        return new LinkingEntitySetReader(
+                dataGraphService(),
+                entityKeyIdPager(),
+                LinkingEntitySetReader.DEFAULT_POOL_SIZE );
+    }
+
+    @Bean
+    public PipelinedEntityCreator pipelinedEntityCreator() {
+        return new PipelinedEntityCreator(
+                idService(),
+                entityDatastore(),
+                executor,
+                Integer.getInteger( "datastore.create.chunkSize", PipelinedEntityCreator.DEFAULT_CHUNK_SIZE ),
+                Integer.getInteger( "datastore.create.pipelineDepth", PipelinedEntityCreator.DEFAULT_PIPELINE_DEPTH ) );
+    }
+
+    @Bean
+    public IdempotentWriteService idempotentWriteService() {
+        return new IdempotentWriteService(
+                hazelcastInstance,
+                defaultObjectMapper(),
+                Long.getLong( "datastore.idempotency.ttlSeconds", IdempotentWriteService.DEFAULT_TTL_SECONDS ),
+                Long.getLong( "datastore.idempotency.lockWaitSeconds",
+                        IdempotentWriteService.DEFAULT_LOCK_WAIT_SECONDS ),
+                Long.getLong( "datastore.idempotency.lockLeaseSeconds",
+                        IdempotentWriteService.DEFAULT_LOCK_LEASE_SECONDS ),
+                Integer.getInteger( "datastore.idempotency.maxResultLength",
+                        IdempotentWriteService.DEFAULT_MAX_RESULT_LENGTH ) );
+    }
+
+    @Bean
+    public DataGraphJobService dataGraphJobService() {
+        return new DataGraphJobService(
+                hazelcastInstance,
+                defaultObjectMapper(),
+                Integer.getInteger( "datastore.jobs.poolSize", DataGraphJobService.DEFAULT_POOL_SIZE ),
+                Integer.getInteger( "datastore.jobs.maxQueuedJobs", DataGraphJobService.DEFAULT_MAX_QUEUED_JOBS ),
+                Long.getLong( "datastore.jobs.maxQueuedBytes", DataGraphJobService.DEFAULT_MAX_QUEUED_BYTES ),
+                Long.getLong( "datastore.jobs.statusTtlSeconds", DataGraphJobService.DEFAULT_STATUS_TTL_SECONDS ) );
+    }
+
+    @Bean
+    public ParallelEntitySetWriter parallelEntitySetWriter() {
+        return new ParallelEntitySetWriter( ParallelEntitySetWriter.DEFAULT_POOL_SIZE );
+    }
+
+    @Bean
+    public ThrottledDeletionService throttledDeletionService() {
+        return new ThrottledDeletionService(
+                hazelcastInstance,
+                defaultObjectMapper(),
+                entityKeyIdPager(),
+                Integer.getInteger( "datastore.deletes.poolSize", ThrottledDeletionService.DEFAULT_POOL_SIZE ),
+                Integer.getInteger( "datastore.deletes.maxQueuedJobs",
+                        ThrottledDeletionService.DEFAULT_MAX_QUEUED_JOBS ),
+                Long.getLong( "datastore.deletes.maxQueuedBytes",
+                        ThrottledDeletionService.DEFAULT_MAX_QUEUED_BYTES ),
+                Long.getLong( "datastore.deletes.statusTtlSeconds",
+                        ThrottledDeletionService.DEFAULT_STATUS_TTL_SECONDS ),
+                Double.parseDouble( System.getProperty( "datastore.deletes.rowsPerSecond",
+                        String.valueOf( ThrottledDeletionService.DEFAULT_ROWS_PER_SECOND ) ) ) );
+    }
+
+    @Bean
+    public EntitySetCardinalityService entitySetCardinalityService() {
+        return new EntitySetCardinalityService(
+                hazelcastInstance,
+                rds().getReadOnlyReplica(),
+                entitySetManager(),
+                Long.getLong( "datastore.counts.reconcileAfterSeconds",
+                        EntitySetCardinalityService.DEFAULT_RECONCILE_AFTER_SECONDS ) );
+    }
+
+    @Bean
+    public DataRequestMetrics dataRequestMetrics() {
+        return new DataRequestMetrics( metricRegistry );
+    }
+
+    @Bean
+    public NeighborDeletePlanner neighborDeletePlanner() {
+        return new NeighborDeletePlanner( searchService(), authorizationManager() );
+    }
+
+    @Bean
+    public ArrowEntitySetDataWriter arrowEntitySetDataWriter() {
+        return new ArrowEntitySetDataWriter(
+                Long.getLong( "datastore.export.arrow.maxAllocationBytes",
+                        ArrowEntitySetDataWriter.DEFAULT_MAX_ALLOCATION_BYTES ),
+                Long.getLong( "datastore.export.arrow.maxExportAllocationBytes",
+                        ArrowEntitySetDataWriter.DEFAULT_MAX_EXPORT_ALLOCATION_BYTES ) );
+    }
+
+    @Bean
+    public JsonChunkReader jsonChunkReader() {
+        return new JsonChunkReader( defaultObjectMapper() );
+    }
+
     @Bean
     public ManagementAPI managementAPI() {
         return new ManagementAPI( auth0Configuration.getDomain(), auth0TokenProvider().getToken() );
@@ -374,6 +489,11 @@ public class DatastoreServicesPod {
         return new EdmAuthorizationHelper( dataModelService(), authorizationManager(), entitySetManager() );
     }
 
+    @Bean
+    public RequestAuthorizationCache requestAuthorizationCache() {
+        return new RequestAuthorizationCache( authorizationManager(), edmAuthorizationHelper() );
+    }
+
     @Bean
     public GraphService graphApi() {
         return new Graph( hikariDataSource,
@@ -418,6 +538,15 @@ public class DatastoreServicesPod {
         return new DataGraphServiceHelper( entitySetManager() );
     }
 
+    @Bean
+    public EdgeEntityTypeValidator edgeEntityTypeValidator() {
+        return new EdgeEntityTypeValidator(
+                dataGraphServiceHelper(),
+                eventBus,
+                EdgeEntityTypeValidator.DEFAULT_MAXIMUM_SIZE,
+                EdgeEntityTypeValidator.DEFAULT_EXPIRE_AFTER_WRITE_SECONDS );
+    }
+
     @Bean
     public DbCredentialService dcs() {
         return new DbCredentialService( hazelcastInstance, longIdService() );
@@ -449,9 +578,52 @@ public class DatastoreServicesPod {
         return new AwsAuth0TokenProvider( auth0Configuration );
     }
 
+    @Bean
+    public BulkIndexer bulkIndexer() {
+        return new BulkIndexer(
+                metricRegistry,
+                Integer.getInteger( "datastore.search.bulk.maxActions", BulkIndexer.DEFAULT_MAX_ACTIONS ),
+                Long.getLong( "datastore.search.bulk.maxBytes", BulkIndexer.DEFAULT_MAX_BYTES ),
+                Integer.getInteger( "datastore.search.bulk.concurrentRequests",
+                        BulkIndexer.DEFAULT_CONCURRENT_REQUESTS ),
+                Integer.getInteger( "datastore.search.bulk.maxRetries", BulkIndexer.DEFAULT_MAX_RETRIES ),
+                Long.getLong( "datastore.search.bulk.initialBackoffMillis",
+                        BulkIndexer.DEFAULT_INITIAL_BACKOFF_MILLIS ) );
+    }
+
+    @Bean
+    public ElasticsearchConnectionMonitor elasticsearchConnectionMonitor() {
+        final var searchConfiguration = datastoreConfiguration.getSearchConfiguration();
+        return new ElasticsearchConnectionMonitor(
+                new ElasticsearchTransportClientFactory(
+                        searchConfiguration.getElasticsearchUrl(),
+                        searchConfiguration.getElasticsearchPort(),
+                        searchConfiguration.getElasticsearchCluster() ),
+                Long.getLong( "datastore.search.connection.checkIntervalMillis",
+                        ElasticsearchConnectionMonitor.DEFAULT_CHECK_INTERVAL_MILLIS ),
+                Integer.getInteger( "datastore.search.connection.failureThreshold",
+                        ElasticsearchConnectionMonitor.DEFAULT_FAILURE_THRESHOLD ),
+                Long.getLong( "datastore.search.connection.maxReconnectBackoffMillis",
+                        ElasticsearchConnectionMonitor.DEFAULT_MAX_RECONNECT_BACKOFF_MILLIS ) );
+    }
+
+    @Bean
+    public SearchResultCache searchResultCache() {
+        return new SearchResultCache(
+                metricRegistry,
+                Long.getLong( "datastore.search.cache.maximumSize", SearchResultCache.DEFAULT_MAXIMUM_SIZE ),
+                Long.getLong( "datastore.search.cache.expireAfterWriteSeconds",
+                        SearchResultCache.DEFAULT_EXPIRE_AFTER_WRITE_SECONDS ) );
+    }
+
     @Bean
     public ConductorElasticsearchApi conductorElasticsearchApi() {
-        return new DatastoreElasticsearchImpl( datastoreConfiguration.getSearchConfiguration() );
+        return new DatastoreElasticsearchImpl(
+                datastoreConfiguration.getSearchConfiguration(),
+                Optional.empty(),
+                bulkIndexer(),
+                elasticsearchConnectionMonitor(),
+                searchResultCache() );
     }
 
     @Bean
@@ -557,14 +729,29 @@ public class DatastoreServicesPod {
     @Bean
     @Profile( { ConfigurationConstants.Profiles.AWS_CONFIGURATION_PROFILE,
             ConfigurationConstants.Profiles.AWS_TESTING_PROFILE, AuditingProfiles.LOCAL_AWS_AUDITING_PROFILE } )
-    public AuditingManager s3AuditingService() {
-        return new S3AuditingService( auditingConfiguration, longIdService(), defaultObjectMapper() );
+    public AssociationAuditingManager s3AuditingService() {
+        return asyncAuditingManager(
+                new S3AuditingService( auditingConfiguration, longIdService(), defaultObjectMapper() ) );
     }
 
     @Bean
     @Profile( AuditingProfiles.LOCAL_AUDITING_PROFILE )
-    public AuditingManager localAuditingService() {
-        return new LocalAuditingService( dataGraphService(), auditRecordEntitySetsManager(), defaultObjectMapper() );
+    public AssociationAuditingManager localAuditingService() {
+        return asyncAuditingManager(
+                new LocalAuditingService( dataGraphService(), auditRecordEntitySetsManager(), defaultObjectMapper() ) );
+    }
+
+    @Bean
+    public AsyncAuditingConfiguration asyncAuditingConfiguration() {
+        return AsyncAuditingConfiguration.fromSystemProperties();
+    }
+
+    private AssociationAuditingManager asyncAuditingManager( AuditingManager auditingManager ) {
+        return new AsyncAuditingManager(
+                auditingManager,
+                asyncAuditingConfiguration(),
+                defaultObjectMapper(),
+                metricRegistry );
     }
 
     @Bean
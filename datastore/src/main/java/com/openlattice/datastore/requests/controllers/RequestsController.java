@@ -26,6 +26,8 @@ import com.openlattice.authorization.AclKey;
 import com.openlattice.authorization.AuthorizationManager;
 import com.openlattice.authorization.AuthorizingComponent;
 import com.openlattice.authorization.Principals;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.requests.HazelcastRequestsManager;
 import com.openlattice.requests.Request;
 import com.openlattice.requests.RequestStatus;
@@ -55,7 +57,7 @@ import java.util.stream.Stream;
  */
 @RestController
 @RequestMapping( RequestsApi.CONTROLLER )
-public class RequestsController implements RequestsApi, AuthorizingComponent {
+public class RequestsController implements RequestsApi, RequestScopedAuthorizingComponent {
 
     @Inject
     private AuthorizationManager authorizations;
@@ -63,11 +65,19 @@ public class RequestsController implements RequestsApi, AuthorizingComponent {
     @Inject
     private HazelcastRequestsManager hrm;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @Override
     public AuthorizationManager getAuthorizationManager() {
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @Timed
     @Override
     @GetMapping(
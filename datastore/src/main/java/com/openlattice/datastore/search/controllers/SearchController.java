@@ -32,6 +32,8 @@ import com.openlattice.authorization.securable.SecurableObjectType;
 import com.openlattice.authorization.util.AuthorizationUtilsKt;
 import com.openlattice.data.requests.NeighborEntityDetails;
 import com.openlattice.data.requests.NeighborEntityIds;
+import com.openlattice.datastore.authorization.RequestAuthorizationCache;
+import com.openlattice.datastore.authorization.RequestScopedAuthorizingComponent;
 import com.openlattice.datastore.services.EdmService;
 import com.openlattice.datastore.services.EntitySetManager;
 import com.openlattice.edm.EntitySet;
@@ -68,7 +70,7 @@ import static com.openlattice.authorization.EdmAuthorizationHelper.READ_PERMISSI
         justification = "NPEs are prevented by Preconditions.checkState but SpotBugs doesn't understand this" )
 @RestController
 @RequestMapping( SearchApi.CONTROLLER )
-public class SearchController implements SearchApi, AuthorizingComponent, AuditingComponent {
+public class SearchController implements SearchApi, RequestScopedAuthorizingComponent, AuditingComponent {
 
     @Inject
     private SearchService searchService;
@@ -97,6 +99,9 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
     @Inject
     private AuditingManager auditingManager;
 
+    @Inject
+    private RequestAuthorizationCache requestAuthorizationCache;
+
     @RequestMapping(
             path = { "/", "" },
             method = RequestMethod.POST,
@@ -164,8 +169,8 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
 
         // if user has read access on all normal entity sets
         if ( authorizedEntitySetIds.size() == searchConstraints.getEntitySetIds().length ) {
-            final var authorizedPropertyTypesByEntitySet = authorizationsHelper.getAuthorizedPropertiesOnEntitySets(
-                    authorizedEntitySetIds, READ_PERMISSION, currentPrincipals );
+            final var authorizedPropertyTypesByEntitySet = requestAuthorizationCache
+                    .getAuthorizedPropertiesOnEntitySets( authorizedEntitySetIds, READ_PERMISSION );
 
             results = searchService.executeSearch( searchConstraints, authorizedPropertyTypesByEntitySet );
         }
@@ -194,6 +199,11 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
         return authorizations;
     }
 
+    @Override
+    public RequestAuthorizationCache getRequestAuthorizationCache() {
+        return requestAuthorizationCache;
+    }
+
     @RequestMapping(
             path = { ORGANIZATIONS },
             method = RequestMethod.POST,
@@ -354,18 +364,15 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
 
         Set<Principal> principals = Principals.getCurrentPrincipals();
 
-        if ( authorizations.checkIfHasPermissions( new AclKey( entitySetId ), principals,
-                EnumSet.of( Permission.READ ) ) ) {
+        if ( requestAuthorizationCache.checkIfHasPermissions( new AclKey( entitySetId ), READ_PERMISSION ) ) {
             EntitySet es = entitySetManager.getEntitySet( entitySetId );
 
             checkState( es != null, "Could not find entity set with id: " + entitySetId.toString() );
 
             final var entitySets = ( es.isLinking() ) ? es.getLinkedEntitySets() : Set.of( entitySetId );
             final var authorizedEntitySets = entitySets.stream()
-                    .filter( linkedEntitySetId ->
-                            authorizations.checkIfHasPermissions( new AclKey( linkedEntitySetId ),
-                                    Principals.getCurrentPrincipals(),
-                                    EnumSet.of( Permission.READ ) ) )
+                    .filter( linkedEntitySetId -> requestAuthorizationCache
+                            .checkIfHasPermissions( new AclKey( linkedEntitySetId ), READ_PERMISSION ) )
                     .collect( Collectors.toSet() );
             if ( authorizedEntitySets.size() != entitySets.size() ) {
                 logger.warn( "Read authorization failed some of the normal entity sets of linking entity set or it " +
@@ -448,8 +455,7 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
         Set<Principal> principals = Principals.getCurrentPrincipals();
 
         Map<UUID, List<NeighborEntityDetails>> result = Maps.newHashMap();
-        if ( authorizations.checkIfHasPermissions( new AclKey( entitySetId ), principals,
-                EnumSet.of( Permission.READ ) ) ) {
+        if ( requestAuthorizationCache.checkIfHasPermissions( new AclKey( entitySetId ), READ_PERMISSION ) ) {
 
             EntitySet es = entitySetManager.getEntitySet( entitySetId );
 
@@ -457,10 +463,8 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
 
             final var entitySets = ( es.isLinking() ) ? es.getLinkedEntitySets() : Set.of( entitySetId );
             final var authorizedEntitySets = entitySets.stream()
-                    .filter( linkedEntitySetId ->
-                            authorizations.checkIfHasPermissions( new AclKey( linkedEntitySetId ),
-                                    Principals.getCurrentPrincipals(),
-                                    EnumSet.of( Permission.READ ) ) )
+                    .filter( linkedEntitySetId -> requestAuthorizationCache
+                            .checkIfHasPermissions( new AclKey( linkedEntitySetId ), READ_PERMISSION ) )
                     .collect( Collectors.toSet() );
             if ( authorizedEntitySets.size() != entitySets.size() ) {
                 logger.warn( "Read authorization failed some of the normal entity sets of linking entity set or it " +
@@ -491,72 +495,11 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
                 } )
         );
 
-        UUID userId = spm.getCurrentUserId();
-
-        int segments = filter.getEntityKeyIds().size() / AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-        if ( filter.getEntityKeyIds().size() % AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT != 0 ) {
-            segments++;
-        }
-
-        List<AuditableEvent> events = Lists
-                .newArrayListWithExpectedSize( neighborsByEntitySet.keySet().size() + segments );
-
-        List<UUID> entityKeyIdsAsList = Lists.newArrayList( filter.getEntityKeyIds() );
-
-        for ( int i = 0; i < segments; i++ ) {
-
-            int fromIndex = i * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-            int toIndex = i == segments - 1 ?
-                    entityKeyIdsAsList.size() :
-                    ( i + 1 ) * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-
-            Set<UUID> segmentOfIds = Sets.newHashSet( entityKeyIdsAsList.subList( fromIndex, toIndex ) );
-
-            events.add( new AuditableEvent(
-                    userId,
-                    new AclKey( entitySetId ),
-                    AuditEventType.LOAD_ENTITY_NEIGHBORS,
-                    "Load neighbors of entities with filter through SearchApi.executeFilteredEntityNeighborSearch",
-                    Optional.of( segmentOfIds ),
-                    ImmutableMap.of( "filters",
-                            new EntityNeighborsFilter( segmentOfIds,
-                                    filter.getSrcEntitySetIds(),
-                                    filter.getDstEntitySetIds(),
-                                    filter.getAssociationEntitySetIds() ) ),
-                    OffsetDateTime.now(),
-                    Optional.empty()
-            ) );
-        }
-
-        for ( UUID neighborEntitySetId : neighborsByEntitySet.keySet() ) {
-            List<UUID> neighbors = neighborsByEntitySet.get( neighborEntitySetId );
-
-            int neighborSegments = neighbors.size() / AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-            if ( neighbors.size() % AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT != 0 ) {
-                neighborSegments++;
-            }
-
-            for ( int i = 0; i < neighborSegments; i++ ) {
-
-                int fromIndex = i * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-                int toIndex = i == neighborSegments - 1 ?
-                        neighbors.size() :
-                        ( i + 1 ) * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
-
-                events.add( new AuditableEvent(
-                        userId,
-                        new AclKey( neighborEntitySetId ),
-                        AuditEventType.READ_ENTITIES,
-                        "Read entities as filtered neighbors through SearchApi.executeFilteredEntityNeighborSearch",
-                        Optional.of( Sets.newHashSet( neighbors.subList( fromIndex, toIndex ) ) ),
-                        ImmutableMap.of( "entitySetId", entitySetId ),
-                        OffsetDateTime.now(),
-                        Optional.empty()
-                ) );
-            }
-        }
-
-        recordEvents( events );
+        recordEvents( neighborSearchAuditEvents(
+                spm.getCurrentUserId(),
+                entitySetId,
+                filter,
+                neighborsByEntitySet ) );
 
         return result;
     }
@@ -573,8 +516,7 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
         Set<Principal> principals = Principals.getCurrentPrincipals();
 
         Map<UUID, Map<UUID, SetMultimap<UUID, NeighborEntityIds>>> result = Maps.newHashMap();
-        if ( authorizations.checkIfHasPermissions( new AclKey( entitySetId ), principals,
-                EnumSet.of( Permission.READ ) ) ) {
+        if ( requestAuthorizationCache.checkIfHasPermissions( new AclKey( entitySetId ), READ_PERMISSION ) ) {
 
             EntitySet es = entitySetManager.getEntitySet( entitySetId );
 
@@ -582,10 +524,8 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
 
             if ( es.isLinking() ) {
                 final Set<UUID> authorizedEntitySets = es.getLinkedEntitySets().stream()
-                        .filter( linkedEntitySetId ->
-                                authorizations.checkIfHasPermissions( new AclKey( linkedEntitySetId ),
-                                        Principals.getCurrentPrincipals(),
-                                        EnumSet.of( Permission.READ ) ) )
+                        .filter( linkedEntitySetId -> requestAuthorizationCache
+                                .checkIfHasPermissions( new AclKey( linkedEntitySetId ), READ_PERMISSION ) )
                         .collect( Collectors.toSet() );
                 if ( authorizedEntitySets.size() != es.getLinkedEntitySets().size() ) {
                     logger.warn(
@@ -743,6 +683,82 @@ public class SearchController implements SearchApi, AuthorizingComponent, Auditi
         }
     }
 
+    /**
+     * Builds the audit events of a filtered neighbor search: one event per segment of the searched entities and one
+     * per segment of the neighbors read from each entity set.
+     */
+    static List<AuditableEvent> neighborSearchAuditEvents(
+            UUID userId,
+            UUID entitySetId,
+            EntityNeighborsFilter filter,
+            ListMultimap<UUID, UUID> neighborsByEntitySet ) {
+        int segments = filter.getEntityKeyIds().size() / AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+        if ( filter.getEntityKeyIds().size() % AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT != 0 ) {
+            segments++;
+        }
+
+        List<AuditableEvent> events = Lists
+                .newArrayListWithExpectedSize( neighborsByEntitySet.keySet().size() + segments );
+
+        List<UUID> entityKeyIdsAsList = Lists.newArrayList( filter.getEntityKeyIds() );
+
+        for ( int i = 0; i < segments; i++ ) {
+
+            int fromIndex = i * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+            int toIndex = i == segments - 1 ?
+                    entityKeyIdsAsList.size() :
+                    ( i + 1 ) * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+
+            Set<UUID> segmentOfIds = Sets.newHashSet( entityKeyIdsAsList.subList( fromIndex, toIndex ) );
+
+            events.add( new AuditableEvent(
+                    userId,
+                    new AclKey( entitySetId ),
+                    AuditEventType.LOAD_ENTITY_NEIGHBORS,
+                    "Load neighbors of entities with filter through SearchApi.executeFilteredEntityNeighborSearch",
+                    Optional.of( segmentOfIds ),
+                    ImmutableMap.of( "filters",
+                            new EntityNeighborsFilter( segmentOfIds,
+                                    filter.getSrcEntitySetIds(),
+                                    filter.getDstEntitySetIds(),
+                                    filter.getAssociationEntitySetIds() ) ),
+                    OffsetDateTime.now(),
+                    Optional.empty()
+            ) );
+        }
+
+        for ( UUID neighborEntitySetId : neighborsByEntitySet.keySet() ) {
+            List<UUID> neighbors = neighborsByEntitySet.get( neighborEntitySetId );
+
+            int neighborSegments = neighbors.size() / AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+            if ( neighbors.size() % AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT != 0 ) {
+                neighborSegments++;
+            }
+
+            for ( int i = 0; i < neighborSegments; i++ ) {
+
+                int fromIndex = i * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+                int toIndex = i == neighborSegments - 1 ?
+                        neighbors.size() :
+                        ( i + 1 ) * AuditingComponent.MAX_ENTITY_KEY_IDS_PER_EVENT;
+
+                events.add( new AuditableEvent(
+                        userId,
+                        new AclKey( neighborEntitySetId ),
+                        AuditEventType.READ_ENTITIES,
+                        "Read entities as filtered neighbors through SearchApi.executeFilteredEntityNeighborSearch",
+                        Optional.of( Sets.newHashSet( neighbors.subList( fromIndex, toIndex ) ) ),
+                        ImmutableMap.of( "entitySetId", entitySetId ),
+                        OffsetDateTime.now(),
+                        Optional.empty()
+                ) );
+            }
+        }
+
+
+        return events;
+    }
+
     private static Set<UUID> getEntityKeyIdsFromSearchResult( DataSearchResult searchResult ) {
         return searchResult.getHits().stream().map( SearchController::getEntityKeyId ).collect( Collectors.toSet() );
     }
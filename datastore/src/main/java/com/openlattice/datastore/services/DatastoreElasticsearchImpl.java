@@ -1,7 +1,9 @@
 package com.openlattice.datastore.services;
 
+import com.codahale.metrics.MetricRegistry;
 import com.dataloom.mappers.ObjectMappers;
 import com.dataloom.streams.StreamUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -37,10 +39,16 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.lucene.search.join.ScoreMode;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.ResourceAlreadyExistsException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
-import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.MultiSearchRequest;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -54,6 +62,8 @@ import org.elasticsearch.common.unit.Fuzziness;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.query.*;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryAction;
@@ -67,13 +77,14 @@ import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.UnknownHostException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -90,6 +101,12 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
     // @formatter:off
     private static final int MAX_CONCURRENT_SEARCHES = 3;
 
+    private static final int DOCUMENT_BUFFER_SIZE              = 8 * 1024;
+    private static final int MAX_RETAINED_DOCUMENT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final String FIRST_INDEX_SUFFIX   = "_0";
+    private static final String REBUILD_ALIAS_SUFFIX = "_rebuild";
+
     private static final ObjectMapper mapper = ObjectMappers.newJsonMapper();
     private static final Logger       logger = LoggerFactory
             .getLogger( DatastoreElasticsearchImpl.class );
@@ -125,18 +142,22 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             ORGANIZATIONS, ORGANIZATION_TYPE
     );
 
+    private static final ThreadLocal<ByteArrayOutputStream> documentBuffers = ThreadLocal
+            .withInitial( () -> new ByteArrayOutputStream( DOCUMENT_BUFFER_SIZE ) );
+
     static {
         mapper.configure( SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false );
     }
 
-    private       Client                              client;
-    private       ElasticsearchTransportClientFactory factory;
-    private       boolean                             connected = true;
-    private       String                              server;
-    private       String                              cluster;
-    private       int                                 port;
-    private       int                                 defaultNumReplicas;
-    private       int                                 defaultNumShards;
+    private volatile Client                         client;
+    private          String                         server;
+    private          String                         cluster;
+    private          int                            port;
+    private          int                            defaultNumReplicas;
+    private          int                            defaultNumShards;
+    private final    BulkIndexer                    bulkIndexer;
+    private final    ElasticsearchConnectionMonitor connectionMonitor;
+    private final    SearchResultCache              searchResultCache;
     // @formatter:on
 
     public DatastoreElasticsearchImpl( SearchConfiguration config ) {
@@ -146,8 +167,42 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
     public DatastoreElasticsearchImpl(
             SearchConfiguration config,
             Optional<Client> someClient ) {
+        this(
+                config,
+                someClient,
+                new BulkIndexer(
+                        new MetricRegistry(),
+                        BulkIndexer.DEFAULT_MAX_ACTIONS,
+                        BulkIndexer.DEFAULT_MAX_BYTES,
+                        BulkIndexer.DEFAULT_CONCURRENT_REQUESTS,
+                        BulkIndexer.DEFAULT_MAX_RETRIES,
+                        BulkIndexer.DEFAULT_INITIAL_BACKOFF_MILLIS ),
+                new ElasticsearchConnectionMonitor(
+                        new ElasticsearchTransportClientFactory(
+                                config.getElasticsearchUrl(),
+                                config.getElasticsearchPort(),
+                                config.getElasticsearchCluster() ),
+                        ElasticsearchConnectionMonitor.DEFAULT_CHECK_INTERVAL_MILLIS,
+                        ElasticsearchConnectionMonitor.DEFAULT_FAILURE_THRESHOLD,
+                        ElasticsearchConnectionMonitor.DEFAULT_MAX_RECONNECT_BACKOFF_MILLIS ),
+                new SearchResultCache(
+                        new MetricRegistry(),
+                        SearchResultCache.DEFAULT_MAXIMUM_SIZE,
+                        SearchResultCache.DEFAULT_EXPIRE_AFTER_WRITE_SECONDS ) );
+    }
+
+    public DatastoreElasticsearchImpl(
+            SearchConfiguration config,
+            Optional<Client> someClient,
+            BulkIndexer bulkIndexer,
+            ElasticsearchConnectionMonitor connectionMonitor,
+            SearchResultCache searchResultCache ) {
         init( config );
-        client = someClient.orElseGet( factory::getClient );
+        this.bulkIndexer = bulkIndexer;
+        this.connectionMonitor = connectionMonitor;
+        this.searchResultCache = searchResultCache;
+        client = someClient.orElseGet( connectionMonitor::connect );
+        connectionMonitor.start( client, reconnectedClient -> client = reconnectedClient );
         initializeIndices();
     }
 
@@ -155,7 +210,6 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         server = config.getElasticsearchUrl();
         cluster = config.getElasticsearchCluster();
         port = config.getElasticsearchPort();
-        factory = new ElasticsearchTransportClientFactory( server, port, cluster );
         defaultNumReplicas = config.getNumReplicas();
         defaultNumShards = config.getNumShards();
     }
@@ -169,15 +223,55 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
     }
 
     private boolean createIndex( String indexName ) {
-        switch ( indexName ) {
-            case ENTITY_SET_DATA_MODEL:
-                return initializeEntitySetDataModelIndex();
-            case ORGANIZATIONS:
-                return initializeOrganizationIndex();
-            default: {
-                return initializeDefaultIndex( indexName, typeNamesByIndexName.get( indexName ) );
+        if ( !verifyElasticsearchConnection() ) { return false; }
+
+        if ( indexExists( indexName ) ) {
+            return true;
+        }
+
+        // Every node creates the first index under the same name, so that when several of them start up at once only
+        // one index ends up behind the alias and the others find it already there.
+        try {
+            return createVersionedIndex( indexName, indexName + FIRST_INDEX_SUFFIX, indexName );
+        } catch ( ElasticsearchException e ) {
+            if ( ExceptionsHelper.unwrapCause( e ) instanceof ResourceAlreadyExistsException ) {
+                logger.info( "Index {} was already created by another node.", indexName );
+                return true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the physical index {@code versionedIndexName} with the settings and mappings of {@code indexName}, so
+     * that it can be swapped in behind the {@code indexName} alias.
+     *
+     * @param alias The alias to point at the new index right away.
+     * @return Whether the new index was created.
+     */
+    private boolean createVersionedIndex( String indexName, String versionedIndexName, String alias ) {
+        final CreateIndexRequestBuilder request = client.admin().indices()
+                .prepareCreate( versionedIndexName )
+                .addAlias( new Alias( alias ) );
+
+        try {
+            switch ( indexName ) {
+                case ENTITY_SET_DATA_MODEL:
+                    initializeEntitySetDataModelIndex( request );
+                    break;
+                case ORGANIZATIONS:
+                    initializeOrganizationIndex( request );
+                    break;
+                default:
+                    initializeDefaultIndex( request, typeNamesByIndexName.get( indexName ) );
             }
+        } catch ( IOException e ) {
+            logger.error( "Unable to initialize index {}", indexName, e );
+            return false;
         }
+
+        request.execute().actionGet();
+        return true;
     }
 
     @Override
@@ -223,13 +317,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         return client.admin().indices().prepareExists( indexName ).execute().actionGet().isExists();
     }
 
-    private boolean initializeEntitySetDataModelIndex() {
-        if ( !verifyElasticsearchConnection() ) { return false; }
-
-        if ( indexExists( ENTITY_SET_DATA_MODEL ) ) {
-            return true;
-        }
-
+    private void initializeEntitySetDataModelIndex( CreateIndexRequestBuilder request ) throws IOException {
         // entity_set type mapping
         ImmutableMap.Builder<String, Object> properties = ImmutableMap.builder();
         properties.put( PROPERTY_TYPES, ImmutableMap.of( TYPE, NESTED ) );
@@ -246,53 +334,27 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         Map<String, Object> mapping = ImmutableMap
                 .of( ENTITY_SET_TYPE, ImmutableMap.of( MAPPING_PROPERTIES, properties.build() ) );
 
-        try {
-            client.admin().indices().prepareCreate( ENTITY_SET_DATA_MODEL )
-                    .setSettings( getMetaphoneSettings( defaultNumShards ) )
-                    .addMapping( ENTITY_SET_TYPE, mapping )
-                    .execute().actionGet();
-            return true;
-        } catch ( IOException e ) {
-            logger.error( "Unable to initialize entity set data model index", e );
-            return false;
-        }
+        request.setSettings( getMetaphoneSettings( defaultNumShards ) )
+                .addMapping( ENTITY_SET_TYPE, mapping );
     }
 
-    private boolean initializeOrganizationIndex() {
-        if ( !verifyElasticsearchConnection() ) { return false; }
-
-        if ( indexExists( ORGANIZATIONS ) ) {
-            return true;
-        }
-
+    private void initializeOrganizationIndex( CreateIndexRequestBuilder request ) {
         // entity_set type mapping
         Map<String, Object> properties = ImmutableMap.of( ORGANIZATION, ImmutableMap.of( TYPE, OBJECT ) );
         Map<String, Object> organizationData = ImmutableMap.of( MAPPING_PROPERTIES, properties );
 
-        client.admin().indices().prepareCreate( ORGANIZATIONS )
-                .setSettings( Settings.builder()
-                        .put( NUM_SHARDS, defaultNumShards )
-                        .put( NUM_REPLICAS, defaultNumReplicas ) )
-                .addMapping( ORGANIZATION_TYPE, ImmutableMap.of( ORGANIZATION_TYPE, organizationData ) )
-                .execute().actionGet();
-        return true;
+        request.setSettings( Settings.builder()
+                .put( NUM_SHARDS, defaultNumShards )
+                .put( NUM_REPLICAS, defaultNumReplicas ) )
+                .addMapping( ORGANIZATION_TYPE, ImmutableMap.of( ORGANIZATION_TYPE, organizationData ) );
     }
 
-    private boolean initializeDefaultIndex( String indexName, String typeName ) {
-        if ( !verifyElasticsearchConnection() ) { return false; }
-
-        if ( indexExists( indexName ) ) {
-            return true;
-        }
-
+    private void initializeDefaultIndex( CreateIndexRequestBuilder request, String typeName ) {
         Map<String, Object> mapping = ImmutableMap.of( typeName, ImmutableMap.of() );
-        client.admin().indices().prepareCreate( indexName )
-                .setSettings( Settings.builder()
-                        .put( NUM_SHARDS, defaultNumShards )
-                        .put( NUM_REPLICAS, defaultNumReplicas ) )
-                .addMapping( typeName, mapping )
-                .execute().actionGet();
-        return true;
+        request.setSettings( Settings.builder()
+                .put( NUM_SHARDS, defaultNumShards )
+                .put( NUM_REPLICAS, defaultNumReplicas ) )
+                .addMapping( typeName, mapping );
     }
 
     private Map<String, String> getFieldMapping( PropertyType propertyType ) {
@@ -460,6 +522,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             client.prepareIndex( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySet.getId().toString() )
                     .setSource( s, XContentType.JSON )
                     .execute().actionGet();
+            copyToRebuiltIndices( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySet.getId().toString() );
 
             return true;
         } catch ( JsonProcessingException e ) {
@@ -486,11 +549,13 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         if ( !verifyElasticsearchConnection() ) { return false; }
 
         client.prepareDelete( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySetId.toString() ).execute().actionGet();
+        copyToRebuiltIndices( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySetId.toString() );
 
         BulkByScrollResponse response = new DeleteByQueryRequestBuilder( client, DeleteByQueryAction.INSTANCE )
                 .filter( QueryBuilders.termQuery( ENTITY_SET_ID_FIELD, entitySetId.toString() ) )
                 .source( getIndexName( entityTypeId ) )
                 .get();
+        searchResultCache.invalidateEntityType( entityTypeId );
 
         logger.info( "Deleted {} documents from index {} for entity set {}",
                 response.getDeleted(),
@@ -510,47 +575,72 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
      * @param entityValues Property values of a linked entity mapped by the normal entity set id, normal entity key id
      *                     and property type ids respectively.
      */
-    private byte[] formatLinkedEntity( Map<UUID, Map<UUID, Map<UUID, Set<Object>>>> entityValues ) {
-
-        List<Map<Object, Object>> documents = entityValues.entrySet().stream().flatMap( esEntry -> {
-            final var entitySetId = esEntry.getKey();
-            Map<UUID, Map<UUID, Set<Object>>> entity = esEntry.getValue(); // ek_id -> pt_id -> pt_values
-
-            return entity.entrySet().stream().map( ekEntry -> {
-                final var entityKeyId = ekEntry.getKey();
-                final var propertyValues = ekEntry.getValue();
-
-                Map<Object, Object> values = new HashMap<>( propertyValues.size() + 2 );
-                propertyValues.forEach( values::put );
-                values.put( ID_ID.getId(), entityKeyId );
-                values.put( ENTITY_SET_ID_KEY_ID.getId(), entitySetId );
+    static byte[] formatLinkedEntity( Map<UUID, Map<UUID, Map<UUID, Set<Object>>>> entityValues ) {
+        return writeDocument( "linked entity data", generator -> {
+            generator.writeArrayFieldStart( ENTITY );
+            for ( Map.Entry<UUID, Map<UUID, Map<UUID, Set<Object>>>> esEntry : entityValues.entrySet() ) {
+                final var entitySetId = esEntry.getKey().toString();
+
+                for ( Map.Entry<UUID, Map<UUID, Set<Object>>> ekEntry : esEntry.getValue().entrySet() ) {
+                    generator.writeStartObject();
+                    writePropertyValues( generator, ekEntry.getValue() );
+                    generator.writeStringField( ID_ID.getId().toString(), ekEntry.getKey().toString() );
+                    generator.writeStringField( ENTITY_SET_ID_KEY_ID.getId().toString(), entitySetId );
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+        } );
+    }
 
-                return values;
-            } );
-        } ).collect( Collectors.toList() );
+    static byte[] formatEntity( UUID entitySetId, Map<UUID, Set<Object>> entity ) {
+        return writeDocument( "entity data", generator -> {
+            final var entitySetIdValue = entitySetId.toString();
 
-        try {
-            return mapper.writeValueAsBytes( ImmutableMap.of( ENTITY, documents ) );
+            generator.writeObjectFieldStart( ENTITY );
+            writePropertyValues( generator, entity );
+            generator.writeStringField( ENTITY_SET_ID_KEY_ID.getId().toString(), entitySetIdValue );
+            generator.writeEndObject();
+            generator.writeStringField( ENTITY_SET_ID_FIELD, entitySetIdValue );
+        } );
+    }
 
-        } catch ( JsonProcessingException e ) {
-            logger.debug( "error creating linked entity data" );
-            return null;
+    private static void writePropertyValues( JsonGenerator generator, Map<UUID, Set<Object>> propertyValues )
+            throws IOException {
+        for ( Map.Entry<UUID, Set<Object>> entry : propertyValues.entrySet() ) {
+            generator.writeFieldName( entry.getKey().toString() );
+            generator.writeObject( entry.getValue() );
         }
     }
 
-    private byte[] formatEntity( UUID entitySetId, Map<UUID, Set<Object>> entity ) {
-
-        Map<Object, Object> values = new HashMap<>( entity.size() + 1 );
-        entity.forEach( values::put );
-        values.put( ENTITY_SET_ID_KEY_ID.getId(), entitySetId );
-
-        try {
-            return mapper.writeValueAsBytes( ImmutableMap.of( ENTITY, values, ENTITY_SET_ID_FIELD, entitySetId ) );
-
-        } catch ( JsonProcessingException e ) {
-            logger.debug( "error creating entity data" );
+    /**
+     * Writes the json source of a document straight into a per-thread buffer, which is kept between documents unless
+     * it grew past {@link #MAX_RETAINED_DOCUMENT_BUFFER_SIZE}. The returned array is a copy, since index requests
+     * hold on to their source until they have been sent.
+     */
+    private static byte[] writeDocument( String description, DocumentWriter writer ) {
+        final var buffer = documentBuffers.get();
+        buffer.reset();
+
+        try ( JsonGenerator generator = mapper.getFactory().createGenerator( buffer ) ) {
+            generator.writeStartObject();
+            writer.write( generator );
+            generator.writeEndObject();
+        } catch ( IOException e ) {
+            logger.debug( "error creating {}", description );
             return null;
         }
+
+        final byte[] document = buffer.toByteArray();
+        if ( document.length > MAX_RETAINED_DOCUMENT_BUFFER_SIZE ) {
+            documentBuffers.remove();
+        }
+        return document;
+    }
+
+    @FunctionalInterface
+    private interface DocumentWriter {
+        void write( JsonGenerator generator ) throws IOException;
     }
 
     @Override
@@ -566,6 +656,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             client.prepareIndex( getIndexName( entityTypeId ), getTypeName( entityTypeId ), entityKeyId.toString() )
                     .setSource( data, XContentType.JSON )
                     .execute().actionGet();
+            searchResultCache.invalidateEntityType( entityTypeId );
         }
 
         return data != null;
@@ -582,25 +673,21 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             String indexName = getIndexName( entityTypeId );
             String indexType = getTypeName( entityTypeId );
 
-            BulkRequestBuilder requestBuilder = client.prepareBulk();
-
-            entitiesById.forEach( ( entityKeyId, entityData ) -> {
-                byte[] data = formatEntity( entitySetId, entityData );
+            final Stream<DocWriteRequest<?>> requests = entitiesById.entrySet().stream().map( entry -> {
+                byte[] data = formatEntity( entitySetId, entry.getValue() );
 
-                if ( data != null ) {
-                    requestBuilder.add(
-                            client.prepareIndex( indexName, indexType, entityKeyId.toString() )
-                                    .setSource( data, XContentType.JSON ) );
-                }
+                return ( data == null ) ? null : client.prepareIndex( indexName, indexType, entry.getKey().toString() )
+                        .setSource( data, XContentType.JSON )
+                        .request();
             } );
 
-            BulkResponse resp = requestBuilder.execute().actionGet();
+            final boolean indexed = bulkIndexer.execute( client, indexName, requests.filter( Objects::nonNull ) );
+            searchResultCache.invalidateEntityType( entityTypeId );
 
-            if ( resp.hasFailures() ) {
-                logger.info( "At least one failure observed when attempting to index {} entities for entity set {}: {}",
+            if ( !indexed ) {
+                logger.info( "At least one failure observed when attempting to index {} entities for entity set {}",
                         entitiesById.size(),
-                        entitySetId,
-                        resp.buildFailureMessage() );
+                        entitySetId );
                 return false;
             }
 
@@ -619,25 +706,21 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             String indexName = getIndexName( entityTypeId );
             String indexType = getTypeName( entityTypeId );
 
-            BulkRequestBuilder requestBuilder = client.prepareBulk();
+            final Stream<DocWriteRequest<?>> requests = entitiesByLinkingId.entrySet().stream().map( entry -> {
+                final byte[] data = formatLinkedEntity( entry.getValue() );
 
-            entitiesByLinkingId.forEach( ( linkingId, entityValues ) -> {
-                        final byte[] data = formatLinkedEntity( entityValues );
+                return ( data == null ) ? null : client.prepareIndex( indexName, indexType, entry.getKey().toString() )
+                        .setSource( data, XContentType.JSON )
+                        .request();
+            } );
 
-                        if ( data != null ) {
-                            requestBuilder.add(
-                                    client.prepareIndex( indexName, indexType, linkingId.toString() )
-                                            .setSource( data, XContentType.JSON ) );
-                        }
-                    }
-            );
-            final var resp = requestBuilder.execute().actionGet();
+            final boolean indexed = bulkIndexer.execute( client, indexName, requests.filter( Objects::nonNull ) );
+            searchResultCache.invalidateEntityType( entityTypeId );
 
-            if ( resp.hasFailures() ) {
+            if ( !indexed ) {
                 logger.info( "At least one failure observed when attempting to index linking entities with linking " +
-                                "ids {}: {}",
-                        entitiesByLinkingId.keySet(),
-                        resp.buildFailureMessage() );
+                                "ids {}",
+                        entitiesByLinkingId.keySet() );
                 return false;
             }
 
@@ -652,14 +735,11 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         String index = getIndexName( entityTypeId );
         String type = getTypeName( entityTypeId );
 
-        BulkRequestBuilder request = client.prepareBulk();
-        entityKeyIds.forEach( entityKeyId ->
-                request.add( client.prepareDelete( index, type, entityKeyId.toString() ) )
-        );
-
-        request.execute().actionGet();
+        final boolean deleted = bulkIndexer.execute( client, index, entityKeyIds.stream()
+                .map( entityKeyId -> client.prepareDelete( index, type, entityKeyId.toString() ).request() ) );
+        searchResultCache.invalidateEntityType( entityTypeId );
 
-        return true;
+        return deleted;
     }
 
     @Override
@@ -671,6 +751,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
                 .source( getIndexName( entityTypeId ) )
                 .execute()
                 .actionGet();
+        searchResultCache.invalidateEntityType( entityTypeId );
 
         logger.info( "Deleted {} normal entity documents while deleting entity set data {}", resp.getDeleted(),
                 entitySetId );
@@ -878,6 +959,23 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             return new EntityDataKeySearchResult( 0, ImmutableList.of() );
         }
 
+        return searchResultCache.getOrSearch(
+                searchConstraints,
+                entityTypesByEntitySetId,
+                authorizedPropertyTypesByEntitySet,
+                linkingEntitySets,
+                () -> searchEntityData(
+                        searchConstraints,
+                        entityTypesByEntitySetId,
+                        authorizedPropertyTypesByEntitySet,
+                        linkingEntitySets ) );
+    }
+
+    private EntityDataKeySearchResult searchEntityData(
+            SearchConstraints searchConstraints,
+            Map<UUID, UUID> entityTypesByEntitySetId,
+            Map<UUID, DelegatedUUIDSet> authorizedPropertyTypesByEntitySet,
+            Map<UUID, DelegatedUUIDSet> linkingEntitySets ) {
         SortBuilder sort = buildSort( searchConstraints.getSortDefinition() );
 
         MultiSearchRequest requests = new MultiSearchRequest().maxConcurrentSearchRequests( MAX_CONCURRENT_SEARCHES );
@@ -983,6 +1081,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             UpdateRequest updateRequest = new UpdateRequest( ORGANIZATIONS, ORGANIZATION_TYPE, id.toString() )
                     .doc( s, XContentType.JSON );
             client.update( updateRequest ).actionGet();
+            copyToRebuiltIndices( ORGANIZATIONS, ORGANIZATION_TYPE, id.toString() );
             return true;
         } catch ( IOException e ) {
             logger.debug( "error updating organization in elasticsearch" );
@@ -1034,6 +1133,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
                 .equals( SecurableObjectType.AssociationType ) ) {
             client.admin().indices()
                     .delete( new DeleteIndexRequest( getIndexName( objectId ) ) );
+            searchResultCache.invalidateEntityType( objectId );
         }
 
         String indexName = indexNamesByObjectType.get( securableObjectType );
@@ -1055,6 +1155,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
                     ENTITY_SET_TYPE,
                     entitySet.getId().toString() ).doc( s, XContentType.JSON );
             client.update( updateRequest ).actionGet();
+            copyToRebuiltIndices( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySet.getId().toString() );
             return true;
         } catch ( IOException e ) {
             logger.debug( "error updating entity set metadata in elasticsearch" );
@@ -1075,6 +1176,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
                     ENTITY_SET_TYPE,
                     entitySetId.toString() ).doc( s, XContentType.JSON );
             client.update( updateRequest ).actionGet();
+            copyToRebuiltIndices( ENTITY_SET_DATA_MODEL, ENTITY_SET_TYPE, entitySetId.toString() );
             return true;
         } catch ( IOException e ) {
             logger.debug( "error updating property types of entity set in elasticsearch" );
@@ -1091,6 +1193,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             client.prepareIndex( ORGANIZATIONS, ORGANIZATION_TYPE, organization.getId().toString() )
                     .setSource( s, XContentType.JSON )
                     .execute().actionGet();
+            copyToRebuiltIndices( ORGANIZATIONS, ORGANIZATION_TYPE, organization.getId().toString() );
             return true;
         } catch ( JsonProcessingException e ) {
             logger.debug( "error creating organization in elasticsearch" );
@@ -1332,6 +1435,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             client.prepareIndex( index, type, id )
                     .setSource( s, XContentType.JSON )
                     .execute().actionGet();
+            copyToRebuiltIndices( index, type, id );
             return true;
         } catch ( JsonProcessingException e ) {
             logger.debug( "error saving object to elasticsearch" );
@@ -1346,6 +1450,7 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         if ( !verifyElasticsearchConnection() ) { return false; }
 
         client.prepareDelete( index, type, id ).execute().actionGet();
+        copyToRebuiltIndices( index, type, id );
         return true;
     }
 
@@ -1436,6 +1541,17 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
         return fieldsMap;
     }
 
+    /**
+     * Rebuilds {@code index} without taking it offline. The objects are indexed in bounded bulk requests into a new
+     * versioned index, which then replaces the live index behind the {@code index} alias in one atomic request. If
+     * anything fails, the new index is dropped and the live index is left untouched.
+     * <p>
+     * While the rebuild runs, the new index is also behind the {@code <index>_rebuild} alias, through which every
+     * node copies the documents it writes to {@code index} (see {@link #copyToRebuiltIndices}). The objects are only
+     * created where such a copy isn't there yet, so writes made during the rebuild survive the swap. An object that
+     * is deleted after the caller read {@code objects} but before its document is created comes back until the next
+     * rebuild.
+     */
     public boolean triggerIndex(
             String index,
             String type,
@@ -1443,49 +1559,130 @@ public class DatastoreElasticsearchImpl implements ConductorElasticsearchApi {
             Function<Object, String> idFn ) {
         if ( !verifyElasticsearchConnection() ) { return false; }
 
-        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        final String newIndex = index + "_" + System.currentTimeMillis();
+        if ( !createVersionedIndex( index, newIndex, index + REBUILD_ALIAS_SUFFIX ) ) {
+            return false;
+        }
 
-        client.admin().indices().delete( new DeleteIndexRequest( index ) ).actionGet();
-        createIndex( index );
+        try {
+            final Stream<DocWriteRequest<?>> requests = StreamUtil.stream( objects ).map( object -> {
+                try {
+                    String id = idFn.apply( object );
+                    String s = ObjectMappers.getJsonMapper().writeValueAsString( object );
+                    return client.prepareIndex( newIndex, type, id )
+                            .setSource( s, XContentType.JSON )
+                            .setCreate( true )
+                            .request();
+                } catch ( JsonProcessingException e ) {
+                    logger.error( "Error re-indexing securable object type to index {}", index );
+                    return null;
+                }
+            } );
 
-        objects.forEach( object -> {
-            try {
-                String id = idFn.apply( object );
-                String s = ObjectMappers.getJsonMapper().writeValueAsString( object );
-                bulkRequest
-                        .add( client.prepareIndex( index, type, id )
-                                .setSource( s, XContentType.JSON ) );
-            } catch ( JsonProcessingException e ) {
-                logger.error( "Error re-indexing securable object type to index {}", index );
+            if ( !bulkIndexer.execute( client, index, requests.filter( Objects::nonNull ), true ) ) {
+                logger.error( "Failure during attempted re-index of {}. Keeping the current index.", index );
+                deleteIndexQuietly( newIndex );
+                return false;
             }
-        } );
 
-        BulkResponse bulkResponse = bulkRequest.get();
-        if ( bulkResponse.hasFailures() ) {
-            bulkResponse.forEach( item -> logger
-                    .error( "Failure during attempted re-index: {}", item.getFailureMessage() ) );
+            client.admin().indices().prepareRefresh( newIndex ).execute().actionGet();
+            swapAlias( index, newIndex );
+            return true;
+        } catch ( Exception e ) {
+            logger.error( "Unable to re-index {}. Keeping the current index.", index, e );
+            deleteIndexQuietly( newIndex );
+            return false;
         }
+    }
 
-        return true;
+    /**
+     * Copies the document {@code id} as it now is behind the {@code alias} alias into every index that is being
+     * rebuilt for {@code alias}, or deletes it from them if it is gone. The copy carries the version of the live
+     * document, so an older copy that arrives late can't overwrite a newer one.
+     */
+    private void copyToRebuiltIndices( String alias, String type, String id ) {
+        final Set<String> rebuiltIndices = getIndicesBehind( alias + REBUILD_ALIAS_SUFFIX );
+        if ( rebuiltIndices.isEmpty() ) {
+            return;
+        }
+
+        final GetResponse current = client.prepareGet( alias, type, id ).execute().actionGet();
+        for ( String rebuiltIndex : rebuiltIndices ) {
+            try {
+                if ( current.isExists() ) {
+                    client.prepareIndex( rebuiltIndex, type, id )
+                            .setSource( current.getSourceAsString(), XContentType.JSON )
+                            .setVersion( current.getVersion() )
+                            .setVersionType( VersionType.EXTERNAL_GTE )
+                            .execute().actionGet();
+                } else {
+                    client.prepareDelete( rebuiltIndex, type, id ).execute().actionGet();
+                }
+            } catch ( VersionConflictEngineException e ) {
+                logger.debug( "Index {} already has a newer copy of document {}", rebuiltIndex, id );
+            }
+        }
     }
 
-    public boolean verifyElasticsearchConnection() {
-        if ( connected ) {
-            if ( !factory.isConnected( client ) ) {
-                connected = false;
+    /**
+     * Points {@code alias} at {@code newIndex} instead of the indices it pointed at before, which are then deleted. An
+     * index that still goes by the name of the alias, as created before indices were versioned, is removed in the same
+     * atomic request, as is the rebuild alias of {@code newIndex}.
+     */
+    private void swapAlias( String alias, String newIndex ) {
+        final Set<String> previousIndices = getIndicesBehind( alias );
+
+        final var request = client.admin().indices().prepareAliases()
+                .addAliasAction( AliasActions.add().index( newIndex ).alias( alias ) )
+                .addAliasAction( AliasActions.remove().index( newIndex ).alias( alias + REBUILD_ALIAS_SUFFIX ) );
+        if ( previousIndices.isEmpty() ) {
+            if ( indexExists( alias ) ) {
+                request.addAliasAction( AliasActions.removeIndex().index( alias ) );
             }
         } else {
-            client = factory.getClient();
-            if ( client != null ) {
-                connected = true;
+            request.addAliasAction( AliasActions.remove()
+                    .indices( previousIndices.toArray( new String[ 0 ] ) )
+                    .alias( alias ) );
+        }
+        request.execute().actionGet();
+
+        if ( !previousIndices.isEmpty() ) {
+            client.admin().indices()
+                    .delete( new DeleteIndexRequest( previousIndices.toArray( new String[ 0 ] ) ) )
+                    .actionGet();
+        }
+        logger.info( "Alias {} now points at index {} instead of {}", alias, newIndex, previousIndices );
+    }
+
+    private Set<String> getIndicesBehind( String alias ) {
+        final var aliases = client.admin().indices().prepareGetAliases( alias ).execute().actionGet().getAliases();
+        final Set<String> indices = new HashSet<>();
+        aliases.keysIt().forEachRemaining( index -> {
+            if ( !aliases.get( index ).isEmpty() ) {
+                indices.add( index );
             }
+        } );
+        return indices;
+    }
+
+    private void deleteIndexQuietly( String index ) {
+        try {
+            client.admin().indices().delete( new DeleteIndexRequest( index ) ).actionGet();
+        } catch ( Exception e ) {
+            logger.error( "Unable to delete index {}", index, e );
         }
-        return connected;
     }
 
-    @Scheduled( fixedRate = 1800000 )
-    public void verifyRunner() throws UnknownHostException {
-        verifyElasticsearchConnection();
+    /**
+     * Only reads the state kept by the {@link ElasticsearchConnectionMonitor}, so it is cheap enough to call before
+     * every request to the cluster.
+     */
+    public boolean verifyElasticsearchConnection() {
+        return connectionMonitor.isAvailable();
+    }
+
+    public ElasticsearchConnectionState getConnectionState() {
+        return connectionMonitor.getState();
     }
 
     /**
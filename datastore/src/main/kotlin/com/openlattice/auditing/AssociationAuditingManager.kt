@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.auditing
+
+/**
+ * An [AuditingManager] that can record [CompactAssociationAuditBatch]es. Implementations that queue audit records can
+ * keep batches compact until they are written; by default they are expanded and recorded right away.
+ */
+interface AssociationAuditingManager : AuditingManager {
+
+    /**
+     * Records the events of [batches] and returns the number of events recorded.
+     */
+    @JvmDefault
+    fun recordAssociationBatches(batches: List<CompactAssociationAuditBatch>): Int {
+        return batches.sumBy { recordEvents(it.expand()) }
+    }
+}
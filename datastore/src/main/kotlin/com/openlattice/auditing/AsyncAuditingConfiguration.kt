@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.auditing
+
+import java.nio.file.Path
+import java.nio.file.Paths
+
+private const val PREFIX = "datastore.auditing."
+
+/**
+ * What to do with an audit event when the in-memory audit queue is full.
+ */
+enum class AuditOverflowPolicy {
+    /**
+     * Block the recording thread until the writer frees up space in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Append the event to a local spill file, which the writer replays once the queue has drained.
+     */
+    SPILL
+}
+
+/**
+ * Settings of the [AsyncAuditingManager]. Every setting can be overridden with a `datastore.auditing.*` system
+ * property, e.g. `-Ddatastore.auditing.overflowPolicy=SPILL`.
+ */
+data class AsyncAuditingConfiguration(
+        val capacity: Int = 65_536,
+        val batchSize: Int = 1_000,
+        val flushIntervalMillis: Long = 1_000,
+        val overflowPolicy: AuditOverflowPolicy = AuditOverflowPolicy.BLOCK,
+        val spillDirectory: Path = Paths.get(System.getProperty("java.io.tmpdir"), "audit-spill")
+) {
+    init {
+        check(capacity > 0) { "Audit queue capacity must be positive." }
+        check(batchSize in 1..capacity) { "Audit batch size must be between 1 and the queue capacity." }
+        check(flushIntervalMillis > 0) { "Audit flush interval must be positive." }
+    }
+
+    companion object {
+        @JvmStatic
+        fun fromSystemProperties(): AsyncAuditingConfiguration {
+            val defaults = AsyncAuditingConfiguration()
+            return AsyncAuditingConfiguration(
+                    Integer.getInteger("${PREFIX}capacity", defaults.capacity),
+                    Integer.getInteger("${PREFIX}batchSize", defaults.batchSize),
+                    java.lang.Long.getLong("${PREFIX}flushIntervalMillis", defaults.flushIntervalMillis),
+                    System.getProperty("${PREFIX}overflowPolicy")
+                            ?.let { AuditOverflowPolicy.valueOf(it.toUpperCase()) }
+                            ?: defaults.overflowPolicy,
+                    System.getProperty("${PREFIX}spillDirectory")?.let { Paths.get(it) } ?: defaults.spillDirectory
+            )
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.auditing
+
+import com.codahale.metrics.Gauge
+import com.codahale.metrics.MetricRegistry
+import com.codahale.metrics.MetricRegistry.name
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.slf4j.LoggerFactory
+import java.io.BufferedWriter
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+private val logger = LoggerFactory.getLogger(AsyncAuditingManager::class.java)
+
+private const val SPILL_FILE_NAME = "spill.jsonl"
+private const val REPLAY_FILE_GLOB = "replay-*.jsonl"
+private const val SHUTDOWN_TIMEOUT_MILLIS = 30_000L
+
+/**
+ * Takes audit writes off the request path. Recording an event only puts it on a bounded in-memory queue, which a
+ * single writer thread drains into the delegate [AuditingManager] in batches of up to
+ * [AsyncAuditingConfiguration.batchSize] events, or whatever has accumulated after
+ * [AsyncAuditingConfiguration.flushIntervalMillis], whichever comes first.
+ *
+ * When the queue is full the [AuditOverflowPolicy] decides whether recording threads wait for the writer or append
+ * their events to a local spill file as json lines. Spilled events, including any left over from a previous run, are
+ * replayed by the writer once the queue is at most half full.
+ *
+ * High fan-out writes can record a [CompactAssociationAuditBatch] instead, which takes a single slot in the queue and
+ * is only expanded into individual events by the writer thread.
+ *
+ * Since [recordEvents] returns before events are written, the returned count is the number of events accepted.
+ */
+class AsyncAuditingManager(
+        private val delegate: AuditingManager,
+        private val configuration: AsyncAuditingConfiguration,
+        private val mapper: ObjectMapper,
+        metricRegistry: MetricRegistry
+) : AssociationAuditingManager, AutoCloseable {
+    /**
+     * Holds [AuditableEvent]s and [CompactAssociationAuditBatch]es.
+     */
+    private val queue = ArrayBlockingQueue<Any>(configuration.capacity)
+    private val running = AtomicBoolean(true)
+
+    private val spillLock = Any()
+    private val spillFile = configuration.spillDirectory.resolve(SPILL_FILE_NAME)
+    private var spillWriter: BufferedWriter? = null
+    private val hasSpilledEvents = AtomicBoolean(false)
+
+    private val enqueued = metricRegistry.meter(name(AsyncAuditingManager::class.java, "enqueued"))
+    private val spilled = metricRegistry.meter(name(AsyncAuditingManager::class.java, "spilled"))
+    private val failed = metricRegistry.meter(name(AsyncAuditingManager::class.java, "failed"))
+    private val flushes = metricRegistry.timer(name(AsyncAuditingManager::class.java, "flush"))
+
+    private val writer = Thread(this::drain, "async-audit-writer")
+
+    init {
+        metricRegistry.register(name(AsyncAuditingManager::class.java, "queue-depth"), Gauge<Int> { queue.size })
+        metricRegistry.register(
+                name(AsyncAuditingManager::class.java, "queue-remaining-capacity"),
+                Gauge<Int> { queue.remainingCapacity() }
+        )
+
+        if (configuration.overflowPolicy == AuditOverflowPolicy.SPILL) {
+            Files.createDirectories(configuration.spillDirectory)
+        }
+
+        if (Files.isDirectory(configuration.spillDirectory)) {
+            hasSpilledEvents.set(Files.list(configuration.spillDirectory).use { files -> files.findAny().isPresent })
+        }
+
+        writer.isDaemon = true
+        writer.start()
+    }
+
+    override fun recordEvents(events: List<AuditableEvent>): Int {
+        events.forEach(this::enqueue)
+        enqueued.mark(events.size.toLong())
+        return events.size
+    }
+
+    override fun recordAssociationBatches(batches: List<CompactAssociationAuditBatch>): Int {
+        batches.forEach(this::enqueue)
+        val eventCount = batches.sumBy { it.eventCount }
+        enqueued.mark(eventCount.toLong())
+        return eventCount
+    }
+
+    private fun enqueue(record: Any) {
+        if (queue.offer(record)) {
+            return
+        }
+
+        when (configuration.overflowPolicy) {
+            AuditOverflowPolicy.BLOCK -> try {
+                queue.put(record)
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw IllegalStateException("Interrupted while waiting to record audit event.", e)
+            }
+            AuditOverflowPolicy.SPILL -> spill(expand(record))
+        }
+    }
+
+    private fun expand(record: Any): List<AuditableEvent> {
+        return when (record) {
+            is AuditableEvent -> listOf(record)
+            is CompactAssociationAuditBatch -> record.expand()
+            else -> throw IllegalStateException("Unexpected audit record of type ${record.javaClass}.")
+        }
+    }
+
+    private fun spill(events: List<AuditableEvent>) {
+        try {
+            synchronized(spillLock) {
+                val out = spillWriter ?: Files.newBufferedWriter(
+                        spillFile,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND
+                ).also { spillWriter = it }
+
+                events.forEach { event ->
+                    out.write(mapper.writeValueAsString(event))
+                    out.newLine()
+                }
+                out.flush()
+            }
+            hasSpilledEvents.set(true)
+            spilled.mark(events.size.toLong())
+        } catch (e: IOException) {
+            failed.mark(events.size.toLong())
+            logger.error("Unable to spill {} audit events to {}.", events.size, spillFile, e)
+        }
+    }
+
+    private fun drain() {
+        val records = ArrayList<Any>(configuration.batchSize)
+        val batch = ArrayList<AuditableEvent>(configuration.batchSize)
+        val flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configuration.flushIntervalMillis)
+
+        while (running.get() || queue.isNotEmpty()) {
+            try {
+                val deadline = System.nanoTime() + flushIntervalNanos
+                while (batch.size < configuration.batchSize) {
+                    val remaining = deadline - System.nanoTime()
+                    val record = if (remaining > 0) queue.poll(remaining, TimeUnit.NANOSECONDS) else null
+                    if (record == null) {
+                        break
+                    }
+                    records.add(record)
+                    queue.drainTo(records, configuration.batchSize - batch.size - 1)
+                    records.forEach { batch.addAll(expand(it)) }
+                    records.clear()
+                }
+
+                if (batch.isNotEmpty()) {
+                    batch.chunked(configuration.batchSize).forEach(this::flush)
+                    batch.clear()
+                }
+
+                if (hasSpilledEvents.get() && queue.size <= configuration.capacity / 2) {
+                    replaySpilledEvents()
+                }
+            } catch (e: InterruptedException) {
+                running.set(false)
+            } catch (e: Exception) {
+                logger.error("Unexpected error in audit writer.", e)
+            }
+        }
+    }
+
+    private fun flush(batch: List<AuditableEvent>) {
+        try {
+            flushes.time().use { delegate.recordEvents(batch) }
+        } catch (e: Exception) {
+            logger.error("Unable to write {} audit events.", batch.size, e)
+            if (configuration.overflowPolicy == AuditOverflowPolicy.SPILL) {
+                spill(batch)
+            } else {
+                failed.mark(batch.size.toLong())
+            }
+        }
+    }
+
+    /**
+     * Moves the current spill file aside, so recording threads can keep spilling while it is replayed, and then
+     * replays every file that has been moved aside. A file that fails to replay is kept and retried later, so events
+     * in it may be written more than once.
+     */
+    private fun replaySpilledEvents() {
+        synchronized(spillLock) {
+            spillWriter?.close()
+            spillWriter = null
+            if (Files.exists(spillFile)) {
+                Files.move(spillFile, configuration.spillDirectory.resolve("replay-${System.nanoTime()}.jsonl"))
+            }
+            hasSpilledEvents.set(false)
+        }
+
+        Files.newDirectoryStream(configuration.spillDirectory, REPLAY_FILE_GLOB).use { files ->
+            files.sorted().forEach { file ->
+                if (!replay(file)) {
+                    hasSpilledEvents.set(true)
+                    return
+                }
+            }
+        }
+    }
+
+    private fun replay(file: Path): Boolean {
+        return try {
+            Files.newBufferedReader(file, StandardCharsets.UTF_8).use { reader ->
+                reader.lineSequence()
+                        .filter { it.isNotBlank() }
+                        .map { mapper.readValue(it, AuditableEvent::class.java) }
+                        .chunked(configuration.batchSize)
+                        .forEach { flushes.time().use { _ -> delegate.recordEvents(it) } }
+            }
+            Files.delete(file)
+            logger.info("Replayed spilled audit events from {}.", file)
+            true
+        } catch (e: Exception) {
+            logger.error("Unable to replay spilled audit events from {}.", file, e)
+            false
+        }
+    }
+
+    /**
+     * Stops accepting new batches once the queue is empty and waits for the writer to flush what remains.
+     */
+    override fun close() {
+        running.set(false)
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS)
+        synchronized(spillLock) {
+            spillWriter?.close()
+            spillWriter = null
+        }
+        if (queue.isNotEmpty()) {
+            logger.warn("Audit writer shut down with {} events still queued.", queue.size)
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.auditing
+
+import com.google.common.collect.ImmutableMap
+import com.openlattice.authorization.AclKey
+import com.openlattice.data.EntityDataKey
+import java.time.OffsetDateTime
+import java.util.*
+
+private const val KEY_LENGTH = 4
+private const val ID_LENGTH = 2
+
+/**
+ * Audit record of the edges written to a single edge entity set by one association write.
+ *
+ * Instead of three [AuditableEvent]s per edge, each with its own payload map, acl key and timestamp, the batch keeps
+ * the source, destination and edge entity keys of every edge in parallel primitive arrays and shares a single
+ * principal, description and timestamp between all of them. It is expanded into the usual per entity
+ * [AuditEventType.ASSOCIATE_ENTITIES] events by [expand] right before being written, so what is stored and read back
+ * is unchanged.
+ */
+class CompactAssociationAuditBatch(
+        val principal: UUID,
+        val description: String,
+        val timestamp: OffsetDateTime,
+        val edgeEntitySetId: UUID,
+        private val capacity: Int
+) {
+    private val srcKeys = LongArray(capacity * KEY_LENGTH)
+    private val dstKeys = LongArray(capacity * KEY_LENGTH)
+    private val edgeIds = LongArray(capacity * ID_LENGTH)
+
+    var size = 0
+        private set
+
+    /**
+     * The number of [AuditableEvent]s this batch expands to.
+     */
+    val eventCount: Int
+        get() = size * 3
+
+    fun add(src: EntityDataKey, dst: EntityDataKey, edgeEntityKeyId: UUID) {
+        check(size < capacity) { "Audit batch is full." }
+        putKey(srcKeys, size, src)
+        putKey(dstKeys, size, dst)
+        edgeIds[size * ID_LENGTH] = edgeEntityKeyId.mostSignificantBits
+        edgeIds[size * ID_LENGTH + 1] = edgeEntityKeyId.leastSignificantBits
+        size++
+    }
+
+    fun expand(): List<AuditableEvent> {
+        val events = ArrayList<AuditableEvent>(eventCount)
+        for (i in 0 until size) {
+            val src = getKey(srcKeys, i)
+            val dst = getKey(dstKeys, i)
+            val edge = EntityDataKey(
+                    edgeEntitySetId,
+                    UUID(edgeIds[i * ID_LENGTH], edgeIds[i * ID_LENGTH + 1])
+            )
+
+            events.add(event(src, ImmutableMap.of("association", edge, "neighbor", dst, "isSrc", true)))
+            events.add(event(dst, ImmutableMap.of("association", edge, "neighbor", src, "isSrc", false)))
+            events.add(event(edge, ImmutableMap.of("src", src, "dst", dst)))
+        }
+        return events
+    }
+
+    private fun event(entityDataKey: EntityDataKey, data: Map<String, Any>): AuditableEvent {
+        return AuditableEvent(
+                principal,
+                AclKey(entityDataKey.entitySetId),
+                AuditEventType.ASSOCIATE_ENTITIES,
+                description,
+                Optional.of(setOf(entityDataKey.entityKeyId)),
+                data,
+                timestamp,
+                Optional.empty()
+        )
+    }
+
+    private fun putKey(keys: LongArray, index: Int, key: EntityDataKey) {
+        val offset = index * KEY_LENGTH
+        keys[offset] = key.entitySetId.mostSignificantBits
+        keys[offset + 1] = key.entitySetId.leastSignificantBits
+        keys[offset + 2] = key.entityKeyId.mostSignificantBits
+        keys[offset + 3] = key.entityKeyId.leastSignificantBits
+    }
+
+    private fun getKey(keys: LongArray, index: Int): EntityDataKey {
+        val offset = index * KEY_LENGTH
+        return EntityDataKey(UUID(keys[offset], keys[offset + 1]), UUID(keys[offset + 2], keys[offset + 3]))
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.data
+
+/**
+ * Lifecycle of a background job run by an [com.openlattice.datastore.services.AsyncJobRunner].
+ */
+enum class AsyncJobState {
+    QUEUED,
+    RUNNING,
+    FINISHED,
+    FAILED
+}
+
+/**
+ * Status of a background job, as stored by an [com.openlattice.datastore.services.AsyncJobRunner]. Implementations are
+ * serialized as json and must keep the [state] and [errors] properties under those names, since the runner rewrites
+ * them when it fails a job that was lost with its node.
+ */
+interface AsyncJobStatus {
+    val state: AsyncJobState
+    val errors: List<String>
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.data
+
+import com.fasterxml.jackson.annotation.JsonCreator
+import com.fasterxml.jackson.annotation.JsonProperty
+import com.openlattice.data.DataGraphIds
+import java.util.*
+
+private const val ID = "id"
+private const val PRINCIPAL_ID = "principalId"
+private const val STATE = "state"
+private const val ENTITIES_WRITTEN = "entitiesWritten"
+private const val ASSOCIATIONS_WRITTEN = "associationsWritten"
+private const val ERRORS = "errors"
+private const val RESULT = "result"
+
+/**
+ * Progress of an asynchronous `createEntityAndAssociationData` job.
+ *
+ * @param result The ids of the created entities and associations, once the job has finished.
+ */
+data class DataGraphJobStatus @JsonCreator constructor(
+        @JsonProperty(ID) val id: UUID,
+        @JsonProperty(PRINCIPAL_ID) val principalId: UUID,
+        @JsonProperty(STATE) override val state: AsyncJobState,
+        @JsonProperty(ENTITIES_WRITTEN) val entitiesWritten: Long,
+        @JsonProperty(ASSOCIATIONS_WRITTEN) val associationsWritten: Long,
+        @JsonProperty(ERRORS) override val errors: List<String>,
+        @JsonProperty(RESULT) val result: DataGraphIds?
+) : AsyncJobStatus
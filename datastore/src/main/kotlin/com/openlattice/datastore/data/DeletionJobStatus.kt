@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.data
+
+import com.fasterxml.jackson.annotation.JsonCreator
+import com.fasterxml.jackson.annotation.JsonProperty
+import java.util.*
+
+private const val ID = "id"
+private const val PRINCIPAL_ID = "principalId"
+private const val ENTITY_SET_ID = "entitySetId"
+private const val STATE = "state"
+private const val ENTITIES_PROCESSED = "entitiesProcessed"
+private const val NUM_UPDATES = "numUpdates"
+private const val ERRORS = "errors"
+
+/**
+ * Progress of a throttled background deletion.
+ *
+ * @param entitiesProcessed The number of entities whose deletion batches have completed so far.
+ * @param numUpdates The sum of the updates reported by the deletion batches so far.
+ */
+data class DeletionJobStatus @JsonCreator constructor(
+        @JsonProperty(ID) val id: UUID,
+        @JsonProperty(PRINCIPAL_ID) val principalId: UUID,
+        @JsonProperty(ENTITY_SET_ID) val entitySetId: UUID,
+        @JsonProperty(STATE) override val state: AsyncJobState,
+        @JsonProperty(ENTITIES_PROCESSED) val entitiesProcessed: Long,
+        @JsonProperty(NUM_UPDATES) val numUpdates: Long,
+        @JsonProperty(ERRORS) override val errors: List<String>
+) : AsyncJobStatus
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.data
+
+import com.fasterxml.jackson.annotation.JsonCreator
+import com.fasterxml.jackson.annotation.JsonProperty
+import com.openlattice.data.EntityDataKey
+import java.util.*
+
+private const val ENTITY_DATA_KEYS = "entityDataKeys"
+private const val PROPERTIES = "properties"
+
+/**
+ * Request for reading many entities, possibly from different entity sets, at once.
+ *
+ * @param entityDataKeys The entities to read.
+ * @param properties Optional property type ids to read, keyed by entity set id. Entity sets without a selection have
+ * all of their authorized properties read.
+ */
+data class EntityBatchReadRequest @JsonCreator constructor(
+        @JsonProperty(ENTITY_DATA_KEYS) val entityDataKeys: List<EntityDataKey>,
+        @JsonProperty(PROPERTIES) private val properties: Map<UUID, Set<UUID>>?
+) {
+    fun getSelectedProperties(entitySetId: UUID): Optional<Set<UUID>> {
+        return Optional.ofNullable(properties?.get(entitySetId))
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.data
+
+import com.fasterxml.jackson.annotation.JsonCreator
+import com.fasterxml.jackson.annotation.JsonProperty
+import java.util.*
+
+private const val ENTITY_SET_ID = "entitySetId"
+private const val DRY_RUN = "dryRun"
+private const val ENTITIES = "entities"
+private const val NEIGHBORS = "neighbors"
+private const val ASSOCIATIONS = "associations"
+private const val SKIPPED_ENTITY_SET_IDS = "skippedEntitySetIds"
+private const val TOTAL = "total"
+private const val NUM_UPDATES = "numUpdates"
+
+/**
+ * The entities touched by a neighbor-aware delete, grouped by entity set, as found by a single neighborhood traversal.
+ *
+ * @param entityKeyIds The entities of the filter, all of which are deleted whether or not they have neighbors.
+ * @param neighborEntityKeyIds The neighbors in the src/dst entity sets of the filter, by entity set.
+ * @param associationEntityKeyIds The associations connecting the entities of the filter to any neighbor, by entity
+ * set. Associations of deleted neighbors that lead outside the neighborhood are deleted along with those neighbors,
+ * but aren't part of the plan.
+ * @param skippedEntitySetIds The src/dst entity sets of the filter that the caller can't read. Neighbors in them aren't
+ * found by the traversal, so a plan with skipped entity sets is only reported and never executed.
+ */
+data class NeighborDeletePlan(
+        val entitySetId: UUID,
+        val entityKeyIds: Set<UUID>,
+        val neighborEntityKeyIds: Map<UUID, Set<UUID>>,
+        val associationEntityKeyIds: Map<UUID, Set<UUID>>,
+        val skippedEntitySetIds: Set<UUID>
+) {
+    fun summarize(dryRun: Boolean, numUpdates: Int?): NeighborDeletePlanSummary {
+        val neighbors = neighborEntityKeyIds.mapValues { it.value.size }
+        val associations = associationEntityKeyIds.mapValues { it.value.size }
+        return NeighborDeletePlanSummary(
+                entitySetId,
+                dryRun,
+                entityKeyIds.size,
+                neighbors,
+                associations,
+                entityKeyIds.size + neighbors.values.sum() + associations.values.sum(),
+                skippedEntitySetIds,
+                numUpdates
+        )
+    }
+}
+
+/**
+ * Row counts of a [NeighborDeletePlan], returned in place of the plan itself, which can be very large.
+ *
+ * @param skippedEntitySetIds The src/dst entity sets of the filter that were skipped since they can't be read.
+ * @param numUpdates The number of updates made by executing the plan, or null for a dry run.
+ */
+data class NeighborDeletePlanSummary @JsonCreator constructor(
+        @JsonProperty(ENTITY_SET_ID) val entitySetId: UUID,
+        @JsonProperty(DRY_RUN) val dryRun: Boolean,
+        @JsonProperty(ENTITIES) val entities: Int,
+        @JsonProperty(NEIGHBORS) val neighbors: Map<UUID, Int>,
+        @JsonProperty(ASSOCIATIONS) val associations: Map<UUID, Int>,
+        @JsonProperty(TOTAL) val total: Int,
+        @JsonProperty(SKIPPED_ENTITY_SET_IDS) val skippedEntitySetIds: Set<UUID>,
+        @JsonProperty(NUM_UPDATES) val numUpdates: Int?
+)
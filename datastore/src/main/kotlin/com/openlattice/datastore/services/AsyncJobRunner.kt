@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.hazelcast.core.HazelcastInstance
+import com.hazelcast.map.IMap
+import com.openlattice.controllers.exceptions.BadRequestException
+import com.openlattice.datastore.data.AsyncJobState
+import com.openlattice.datastore.data.AsyncJobStatus
+import org.slf4j.LoggerFactory
+import org.springframework.security.concurrency.DelegatingSecurityContextRunnable
+import java.util.*
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+private val logger = LoggerFactory.getLogger(AsyncJobRunner::class.java)
+
+private const val LEASE_TTL_SECONDS = 60L
+private const val LEASE_RENEWAL_SECONDS = 15L
+private const val STATE = "state"
+private const val ERRORS = "errors"
+private const val LOST_JOB_ERROR = "The job was lost because the node running it stopped."
+private val ACTIVE_STATES = EnumSet.of(AsyncJobState.QUEUED, AsyncJobState.RUNNING)
+
+/**
+ * A background job whose status is published by an [AsyncJobRunner].
+ *
+ * @param S The type of the status of the job, which is stored as json.
+ * @param payloadBytes An estimate of the heap held by the job until it has run, e.g. the size of its request body.
+ */
+abstract class AsyncJob<S : AsyncJobStatus>(val id: UUID, val payloadBytes: Long) {
+    internal lateinit var runner: AsyncJobRunner<S>
+
+    /**
+     * Does the work of the job. An exception fails the job with the message of the exception.
+     */
+    abstract fun run()
+
+    /**
+     * Builds the current status of the job.
+     */
+    abstract fun status(state: AsyncJobState, errors: List<String>): S
+
+    /**
+     * Publishes the current status of a running job, e.g. after a batch of work.
+     */
+    protected fun publishProgress() {
+        runner.publish(this, AsyncJobState.RUNNING)
+    }
+}
+
+/**
+ * Runs [AsyncJob]s on a bounded pool of [poolSize] threads, so that long running requests don't hold a servlet thread
+ * and an http connection for their whole duration. At most [maxQueuedJobs] jobs wait for a thread and queued and
+ * running jobs together may hold at most [maxQueuedBytes] of payload, so that a few huge payloads can't exhaust the
+ * heap. Jobs over either limit are rejected with a 400.
+ *
+ * Jobs run on the node that accepted them, with the security context of the submitting request, so they are
+ * authorized and audited exactly like synchronous requests. Their status is kept as json in the Hazelcast map
+ * [statusMapName], so it can be polled through any node, and is evicted [statusTtlSeconds] after the job was last
+ * updated.
+ *
+ * Payloads are not stored, so a job does not survive its node. Instead, the node running a job holds a lease on it,
+ * which it renews every [LEASE_RENEWAL_SECONDS] seconds. Every node, starting when it comes up, regularly fails the
+ * queued and running jobs whose lease has expired, so that clients polling a job that was lost in a restart or a
+ * crash see it fail within about [LEASE_TTL_SECONDS] seconds instead of waiting for its status to expire.
+ */
+class AsyncJobRunner<S : AsyncJobStatus>(
+        hazelcast: HazelcastInstance,
+        private val mapper: ObjectMapper,
+        private val statusType: Class<S>,
+        private val jobName: String,
+        statusMapName: String,
+        poolSize: Int,
+        maxQueuedJobs: Int,
+        private val maxQueuedBytes: Long,
+        private val statusTtlSeconds: Long
+) : AutoCloseable {
+    private val statuses: IMap<UUID, String> = hazelcast.getMap(statusMapName)
+
+    /**
+     * Jobs that are queued or running on any node.
+     */
+    private val activeJobs: IMap<UUID, Boolean> = hazelcast.getMap("${statusMapName}_active")
+
+    /**
+     * Leases held by the nodes running active jobs.
+     */
+    private val leases: IMap<UUID, Boolean> = hazelcast.getMap("${statusMapName}_leases")
+
+    private val localJobs = ConcurrentHashMap.newKeySet<UUID>()
+    private val queuedBytes = AtomicLong()
+
+    private val executor = ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            ArrayBlockingQueue(maxQueuedJobs),
+            ThreadFactoryBuilder().setNameFormat("${jobName.replace(' ', '-')}-job-%d").setDaemon(true).build()
+    )
+
+    private val leaseExecutor = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder().setNameFormat("${jobName.replace(' ', '-')}-job-leases").setDaemon(true).build()
+    )
+
+    init {
+        check(maxQueuedBytes > 0) { "Maximum queued payload must be positive." }
+        leaseExecutor.scheduleWithFixedDelay(
+                this::maintainLeases, 0, LEASE_RENEWAL_SECONDS, TimeUnit.SECONDS
+        )
+    }
+
+    /**
+     * Queues [job] and returns its id right away.
+     */
+    fun submit(job: AsyncJob<S>): UUID {
+        if (!reserve(job.payloadBytes)) {
+            throw BadRequestException(
+                    "Queued $jobName jobs already hold too much data. Please try again later or use a smaller request."
+            )
+        }
+
+        job.runner = this
+        localJobs.add(job.id)
+        leases.set(job.id, true, LEASE_TTL_SECONDS, TimeUnit.SECONDS)
+        activeJobs.set(job.id, true)
+        publish(job, AsyncJobState.QUEUED)
+
+        try {
+            executor.execute(DelegatingSecurityContextRunnable(Runnable { run(job) }))
+        } catch (e: RejectedExecutionException) {
+            statuses.delete(job.id)
+            release(job)
+            throw BadRequestException("Too many $jobName jobs are queued. Please try again later.")
+        }
+
+        return job.id
+    }
+
+    fun getStatus(jobId: UUID): S? {
+        return statuses[jobId]?.let { mapper.readValue(it, statusType) }
+    }
+
+    override fun close() {
+        leaseExecutor.shutdownNow()
+        executor.shutdownNow()
+    }
+
+    internal fun publish(job: AsyncJob<S>, state: AsyncJobState, errors: List<String> = listOf()) {
+        statuses.set(
+                job.id,
+                mapper.writeValueAsString(job.status(state, errors)),
+                statusTtlSeconds,
+                TimeUnit.SECONDS
+        )
+    }
+
+    private fun run(job: AsyncJob<S>) {
+        try {
+            publish(job, AsyncJobState.RUNNING)
+            job.run()
+            publish(job, AsyncJobState.FINISHED)
+            logger.info("Finished {} job {}.", jobName, job.id)
+        } catch (e: Exception) {
+            logger.error("The {} job {} failed.", jobName, job.id, e)
+            publish(job, AsyncJobState.FAILED, listOf(e.message ?: e.javaClass.name))
+        } finally {
+            release(job)
+        }
+    }
+
+    private fun reserve(bytes: Long): Boolean {
+        while (true) {
+            val current = queuedBytes.get()
+            if (current + bytes > maxQueuedBytes) {
+                return false
+            }
+            if (queuedBytes.compareAndSet(current, current + bytes)) {
+                return true
+            }
+        }
+    }
+
+    /**
+     * Gives up the payload and the lease of a job that is done. The job stops being active before its lease is
+     * dropped, so no node can mistake it for a lost job.
+     */
+    private fun release(job: AsyncJob<S>) {
+        queuedBytes.addAndGet(-job.payloadBytes)
+        activeJobs.delete(job.id)
+        leases.delete(job.id)
+        localJobs.remove(job.id)
+    }
+
+    private fun maintainLeases() {
+        try {
+            localJobs.forEach { leases.set(it, true, LEASE_TTL_SECONDS, TimeUnit.SECONDS) }
+            activeJobs.keys.filter { !leases.containsKey(it) }.forEach(this::failLostJob)
+        } catch (e: Exception) {
+            logger.error("Unable to maintain leases of {} jobs.", jobName, e)
+        }
+    }
+
+    /**
+     * Fails a job whose node stopped renewing its lease, unless it completed in the meantime.
+     */
+    private fun failLostJob(jobId: UUID) {
+        val current = statuses[jobId]
+        if (current != null && mapper.readValue(current, statusType).state in ACTIVE_STATES) {
+            val failed = mapper.readTree(current) as ObjectNode
+            failed.put(STATE, AsyncJobState.FAILED.name)
+            failed.putArray(ERRORS).add(LOST_JOB_ERROR)
+            if (statuses.replace(jobId, current, mapper.writeValueAsString(failed))) {
+                statuses.setTtl(jobId, statusTtlSeconds, TimeUnit.SECONDS)
+                logger.warn("Failed {} job {} since the node running it stopped.", jobName, jobId)
+            }
+        }
+        activeJobs.delete(jobId)
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.codahale.metrics.MetricRegistry
+import org.elasticsearch.ExceptionsHelper
+import org.elasticsearch.action.ActionListener
+import org.elasticsearch.action.DocWriteRequest
+import org.elasticsearch.action.bulk.BulkRequest
+import org.elasticsearch.action.bulk.BulkResponse
+import org.elasticsearch.client.Client
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException
+import org.elasticsearch.rest.RestStatus
+import org.slf4j.LoggerFactory
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+import java.util.stream.Stream
+
+private val logger = LoggerFactory.getLogger(BulkIndexer::class.java)
+
+private const val PREFIX = "datastore.search.bulk"
+
+/**
+ * Sends index and delete requests to Elasticsearch as a pipeline of bounded bulk requests, instead of as one bulk
+ * request for the whole input.
+ *
+ * A bulk request is sent once it holds [maxActions] requests or [maxBytes] bytes. While it is being indexed the
+ * calling thread builds the next one, and at most [concurrentRequests] bulk requests are in flight on this node at a
+ * time. Items that Elasticsearch rejects because its write queue is full are retried up to [maxRetries] times, with a
+ * backoff that starts at [initialBackoffMillis] and doubles on every attempt.
+ *
+ * Throughput is recorded per index as `datastore.search.bulk.<index>.documents`, `.bytes`, `.rejected` and `.failed`
+ * meters and a `.requests` timer.
+ */
+class BulkIndexer(
+        private val metricRegistry: MetricRegistry,
+        val maxActions: Int,
+        val maxBytes: Long,
+        val concurrentRequests: Int,
+        val maxRetries: Int,
+        val initialBackoffMillis: Long
+) {
+    companion object {
+        const val DEFAULT_MAX_ACTIONS = 1_000
+        const val DEFAULT_MAX_BYTES = 5L * 1024 * 1024
+        const val DEFAULT_CONCURRENT_REQUESTS = 4
+        const val DEFAULT_MAX_RETRIES = 5
+        const val DEFAULT_INITIAL_BACKOFF_MILLIS = 100L
+    }
+
+    private val inFlight = Semaphore(concurrentRequests)
+
+    init {
+        check(maxActions > 0) { "Maximum number of actions per bulk request must be positive." }
+        check(maxBytes > 0) { "Maximum size of a bulk request must be positive." }
+        check(concurrentRequests > 0) { "Number of concurrent bulk requests must be positive." }
+        check(maxRetries >= 0) { "Number of retries cannot be negative." }
+        check(initialBackoffMillis > 0) { "Initial backoff must be positive." }
+    }
+
+    /**
+     * Sends [requests] to [index] through [client] and waits until every one of them has been indexed or has failed.
+     * The stream is consumed lazily, so documents are built while earlier bulk requests are in flight.
+     *
+     * @param ignoreConflicts Whether requests that fail on a version conflict, such as creating a document that
+     * already exists, count as done instead of as failed.
+     * @return true if no request failed.
+     */
+    @JvmOverloads
+    fun execute(
+            client: Client,
+            index: String,
+            requests: Stream<out DocWriteRequest<*>>,
+            ignoreConflicts: Boolean = false
+    ): Boolean {
+        val pending = mutableListOf<CompletableFuture<Int>>()
+        var bulk = BulkRequest()
+
+        requests.forEach { request ->
+            bulk.add(request)
+            if (bulk.numberOfActions() >= maxActions || bulk.estimatedSizeInBytes() >= maxBytes) {
+                pending.add(submit(client, index, bulk, ignoreConflicts))
+                bulk = BulkRequest()
+            }
+        }
+        if (bulk.numberOfActions() > 0) {
+            pending.add(submit(client, index, bulk, ignoreConflicts))
+        }
+
+        return pending.sumBy { it.join() } == 0
+    }
+
+    private fun submit(
+            client: Client, index: String, bulk: BulkRequest, ignoreConflicts: Boolean
+    ): CompletableFuture<Int> {
+        inFlight.acquire()
+        return send(client, index, bulk, ignoreConflicts, 0).whenComplete { _, _ -> inFlight.release() }
+    }
+
+    /**
+     * Sends [bulk] and completes with the number of its requests that failed, including those that were still being
+     * rejected after the last retry.
+     */
+    private fun send(
+            client: Client, index: String, bulk: BulkRequest, ignoreConflicts: Boolean, attempt: Int
+    ): CompletableFuture<Int> {
+        val result = CompletableFuture<Int>()
+        val bytes = bulk.estimatedSizeInBytes()
+        val timer = metricRegistry.timer(MetricRegistry.name(PREFIX, index, "requests")).time()
+
+        val listener = object : ActionListener<BulkResponse> {
+            override fun onResponse(response: BulkResponse) {
+                timer.stop()
+                metricRegistry.meter(MetricRegistry.name(PREFIX, index, "bytes")).mark(bytes)
+
+                val rejected = BulkRequest()
+                var failed = 0
+                response.items.filter { it.isFailed }.forEach { item ->
+                    if (ignoreConflicts && item.failure.status == RestStatus.CONFLICT) {
+                        return@forEach
+                    }
+                    if (item.failure.status == RestStatus.TOO_MANY_REQUESTS && attempt < maxRetries) {
+                        rejected.add(bulk.requests()[item.itemId])
+                    } else {
+                        failed++
+                    }
+                }
+
+                metricRegistry.meter(MetricRegistry.name(PREFIX, index, "documents"))
+                        .mark((response.items.size - rejected.numberOfActions() - failed).toLong())
+                if (failed > 0) {
+                    metricRegistry.meter(MetricRegistry.name(PREFIX, index, "failed")).mark(failed.toLong())
+                    logger.warn(
+                            "{} of {} requests of a bulk request to index {} failed: {}",
+                            failed,
+                            response.items.size,
+                            index,
+                            response.buildFailureMessage()
+                    )
+                }
+
+                if (rejected.numberOfActions() == 0) {
+                    result.complete(failed)
+                } else {
+                    retry(client, index, rejected, ignoreConflicts, attempt).thenAccept { result.complete(failed + it) }
+                }
+            }
+
+            override fun onFailure(e: Exception) {
+                timer.stop()
+                if (ExceptionsHelper.unwrapCause(e) is EsRejectedExecutionException && attempt < maxRetries) {
+                    retry(client, index, bulk, ignoreConflicts, attempt).thenAccept { result.complete(it) }
+                } else {
+                    metricRegistry.meter(MetricRegistry.name(PREFIX, index, "failed"))
+                            .mark(bulk.numberOfActions().toLong())
+                    logger.error("Bulk request of {} requests to index {} failed.", bulk.numberOfActions(), index, e)
+                    result.complete(bulk.numberOfActions())
+                }
+            }
+        }
+
+        try {
+            client.bulk(bulk, listener)
+        } catch (e: Exception) {
+            listener.onFailure(e)
+        }
+
+        return result
+    }
+
+    private fun retry(
+            client: Client, index: String, bulk: BulkRequest, ignoreConflicts: Boolean, attempt: Int
+    ): CompletableFuture<Int> {
+        metricRegistry.meter(MetricRegistry.name(PREFIX, index, "rejected")).mark(bulk.numberOfActions().toLong())
+        val backoffMillis = initialBackoffMillis shl attempt
+        logger.info(
+                "Elasticsearch rejected {} requests to index {}. Retrying in {} ms.",
+                bulk.numberOfActions(),
+                index,
+                backoffMillis
+        )
+
+        return CompletableFuture
+                .supplyAsync(
+                        Supplier { send(client, index, bulk, ignoreConflicts, attempt + 1) },
+                        CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS)
+                )
+                .thenCompose { it }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.hazelcast.core.HazelcastInstance
+import com.openlattice.data.DataGraphIds
+import com.openlattice.datastore.data.AsyncJobState
+import com.openlattice.datastore.data.DataGraphJobStatus
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Function
+
+private val logger = LoggerFactory.getLogger(DataGraphJobService::class.java)
+
+/**
+ * Runs `createEntityAndAssociationData` writes in the background on an [AsyncJobRunner], so that multi-gigabyte
+ * payloads don't hold a servlet thread and an http connection for the whole write.
+ *
+ * The payload is only held in memory by the accepting node until its job has run, so queued payloads are limited to
+ * [maxQueuedBytes] in total and a job that is lost because its node went down is failed.
+ */
+class DataGraphJobService(
+        hazelcast: HazelcastInstance,
+        mapper: ObjectMapper,
+        poolSize: Int,
+        maxQueuedJobs: Int,
+        maxQueuedBytes: Long,
+        statusTtlSeconds: Long
+) {
+    companion object {
+        const val JOB_STATUS_MAP = "datastore_data_graph_jobs"
+        const val DEFAULT_POOL_SIZE = 4
+        const val DEFAULT_MAX_QUEUED_JOBS = 16
+        const val DEFAULT_MAX_QUEUED_BYTES = 1024L * 1024 * 1024
+        const val DEFAULT_STATUS_TTL_SECONDS = 7 * 24 * 60 * 60L
+    }
+
+    private val runner = AsyncJobRunner(
+            hazelcast,
+            mapper,
+            DataGraphJobStatus::class.java,
+            "data graph",
+            JOB_STATUS_MAP,
+            poolSize,
+            maxQueuedJobs,
+            maxQueuedBytes,
+            statusTtlSeconds
+    )
+
+    /**
+     * Queues the write and returns the id of its job right away.
+     *
+     * @param payloadBytes The size of the serialized data graph.
+     */
+    fun submit(principalId: UUID, payloadBytes: Long, write: Function<Progress, DataGraphIds>): UUID {
+        val jobId = runner.submit(Progress(UUID.randomUUID(), principalId, payloadBytes, write))
+        logger.info("Queued data graph job {} for principal {}.", jobId, principalId)
+        return jobId
+    }
+
+    fun getStatus(jobId: UUID): DataGraphJobStatus? {
+        return runner.getStatus(jobId)
+    }
+
+    class Progress(
+            jobId: UUID,
+            private val principalId: UUID,
+            payloadBytes: Long,
+            private val write: Function<Progress, DataGraphIds>
+    ) : AsyncJob<DataGraphJobStatus>(jobId, payloadBytes) {
+        private val entitiesWritten = AtomicLong()
+        private val associationsWritten = AtomicLong()
+
+        @Volatile
+        private var result: DataGraphIds? = null
+
+        fun entitiesWritten(count: Int) {
+            entitiesWritten.addAndGet(count.toLong())
+            publishProgress()
+        }
+
+        fun associationsWritten(count: Int) {
+            associationsWritten.addAndGet(count.toLong())
+            publishProgress()
+        }
+
+        override fun run() {
+            result = write.apply(this)
+        }
+
+        override fun status(state: AsyncJobState, errors: List<String>): DataGraphJobStatus {
+            return DataGraphJobStatus(
+                    id,
+                    principalId,
+                    state,
+                    entitiesWritten.get(),
+                    associationsWritten.get(),
+                    errors,
+                    result
+            )
+        }
+    }
+}
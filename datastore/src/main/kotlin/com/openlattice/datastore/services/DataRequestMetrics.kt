@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.codahale.metrics.MetricRegistry
+import org.springframework.web.context.request.RequestContextHolder
+import org.springframework.web.context.request.ServletRequestAttributes
+import java.util.concurrent.TimeUnit
+
+private const val PREFIX = "datastore.data"
+
+enum class DataRequestPhase {
+    AUTHORIZATION,
+    VALIDATION,
+    STORAGE,
+    AUDIT,
+    SERIALIZATION
+}
+
+/**
+ * Breaks the latency of data endpoints down by phase and records the size of their payloads, so that it shows where
+ * the time of a request goes and how it grows with the size of the request.
+ *
+ * Metrics are registered in the [MetricRegistry] as `datastore.data.<endpoint>.<phase>` timers and
+ * `datastore.data.<endpoint>.entities`, `.properties` and `.bytes` histograms.
+ */
+class DataRequestMetrics(private val metricRegistry: MetricRegistry) {
+
+    /**
+     * Starts timing a request to [endpoint]. The returned timer attributes the time up to each
+     * [PhaseTimer.split] to the phase that just ended.
+     */
+    fun start(endpoint: String): PhaseTimer = PhaseTimer(endpoint)
+
+    /**
+     * Records the number of entities and property values of a request to [endpoint], as well as the size of the body
+     * of the current http request, if it is known.
+     */
+    fun recordPayload(endpoint: String, entities: Int, properties: Int) {
+        metricRegistry.histogram(MetricRegistry.name(PREFIX, endpoint, "entities")).update(entities)
+        metricRegistry.histogram(MetricRegistry.name(PREFIX, endpoint, "properties")).update(properties)
+
+        val attributes = RequestContextHolder.getRequestAttributes()
+        if (attributes is ServletRequestAttributes) {
+            val bytes = attributes.request.contentLengthLong
+            if (bytes >= 0) {
+                metricRegistry.histogram(MetricRegistry.name(PREFIX, endpoint, "bytes")).update(bytes)
+            }
+        }
+    }
+
+    inner class PhaseTimer internal constructor(private val endpoint: String) {
+        private var last = System.nanoTime()
+
+        fun split(phase: DataRequestPhase) {
+            val now = System.nanoTime()
+            metricRegistry.timer(MetricRegistry.name(PREFIX, endpoint, phase.name.toLowerCase()))
+                    .update(now - last, TimeUnit.NANOSECONDS)
+            last = now
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.collect.ArrayListMultimap
+import com.google.common.collect.ListMultimap
+import com.google.common.eventbus.EventBus
+import com.google.common.eventbus.Subscribe
+import com.openlattice.data.DataEdge
+import com.openlattice.data.DataEdgeKey
+import com.openlattice.data.graph.DataGraphServiceHelper
+import com.openlattice.edm.events.AssociationTypeCreatedEvent
+import com.openlattice.edm.events.AssociationTypeDeletedEvent
+import com.openlattice.edm.events.EntitySetCreatedEvent
+import com.openlattice.edm.events.EntitySetDeletedEvent
+import com.openlattice.edm.events.EntityTypeCreatedEvent
+import com.openlattice.edm.events.EntityTypeDeletedEvent
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+private val logger = LoggerFactory.getLogger(EdgeEntityTypeValidator::class.java)
+
+/**
+ * Checks that the src and dst entity types of edges are allowed by their association type, remembering which
+ * (association entity set, src entity set, dst entity set) triples passed, so that a batch is checked once per
+ * distinct triple instead of once per edge and triples seen in earlier batches aren't checked again.
+ *
+ * The actual checks are delegated to [DataGraphServiceHelper]. Remembered triples are dropped whenever an entity set,
+ * entity type or association type event is posted on the local [EventBus], and otherwise expire after
+ * [expireAfterWriteSeconds], which bounds how long an EDM change made through another node goes unnoticed.
+ */
+class EdgeEntityTypeValidator(
+        private val dataGraphServiceHelper: DataGraphServiceHelper,
+        eventBus: EventBus,
+        maximumSize: Long,
+        expireAfterWriteSeconds: Long
+) {
+    companion object {
+        const val DEFAULT_MAXIMUM_SIZE = 100_000L
+        const val DEFAULT_EXPIRE_AFTER_WRITE_SECONDS = 5 * 60L
+    }
+
+    private data class EdgeEntitySets(
+            val associationEntitySetId: UUID,
+            val srcEntitySetId: UUID,
+            val dstEntitySetId: UUID
+    )
+
+    /**
+     * Maps each remembered triple to the [generation] its check started in.
+     */
+    private val validated: Cache<EdgeEntitySets, Long> = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+            .build()
+
+    /**
+     * Incremented on every EDM change. Only triples remembered in the current generation are valid, so a check that
+     * started before a change can't make its triples look valid after the change.
+     */
+    private val generation = AtomicLong()
+
+    init {
+        eventBus.register(this)
+    }
+
+    fun checkEdgeEntityTypes(edges: Set<DataEdgeKey>) {
+        val unchecked = edges
+                .associateBy { EdgeEntitySets(it.edge.entitySetId, it.src.entitySetId, it.dst.entitySetId) }
+                .filterKeys { !isValidated(it) }
+        if (unchecked.isEmpty()) {
+            return
+        }
+
+        val startGeneration = generation.get()
+        dataGraphServiceHelper.checkEdgeEntityTypes(unchecked.values.toSet())
+        remember(unchecked.keys, startGeneration)
+    }
+
+    fun checkAssociationEntityTypes(associations: ListMultimap<UUID, DataEdge>) {
+        val unchecked = associations.entries()
+                .associateBy { EdgeEntitySets(it.key, it.value.src.entitySetId, it.value.dst.entitySetId) }
+                .filterKeys { !isValidated(it) }
+        if (unchecked.isEmpty()) {
+            return
+        }
+
+        val representatives = ArrayListMultimap.create<UUID, DataEdge>()
+        unchecked.values.forEach { representatives.put(it.key, it.value) }
+
+        val startGeneration = generation.get()
+        dataGraphServiceHelper.checkAssociationEntityTypes(representatives)
+        remember(unchecked.keys, startGeneration)
+    }
+
+    private fun isValidated(edgeEntitySets: EdgeEntitySets): Boolean {
+        return validated.getIfPresent(edgeEntitySets) == generation.get()
+    }
+
+    private fun remember(edgeEntitySets: Set<EdgeEntitySets>, startGeneration: Long) {
+        edgeEntitySets.forEach { validated.put(it, startGeneration) }
+    }
+
+    @Subscribe
+    fun onEntitySetCreated(event: EntitySetCreatedEvent) = clear(event)
+
+    @Subscribe
+    fun onEntitySetDeleted(event: EntitySetDeletedEvent) = clear(event)
+
+    @Subscribe
+    fun onEntityTypeCreated(event: EntityTypeCreatedEvent) = clear(event)
+
+    @Subscribe
+    fun onEntityTypeDeleted(event: EntityTypeDeletedEvent) = clear(event)
+
+    @Subscribe
+    fun onAssociationTypeCreated(event: AssociationTypeCreatedEvent) = clear(event)
+
+    @Subscribe
+    fun onAssociationTypeDeleted(event: AssociationTypeDeletedEvent) = clear(event)
+
+    private fun clear(event: Any) {
+        generation.incrementAndGet()
+        validated.invalidateAll()
+        logger.debug("Cleared edge entity type checks after {}.", event.javaClass.simpleName)
+    }
+}
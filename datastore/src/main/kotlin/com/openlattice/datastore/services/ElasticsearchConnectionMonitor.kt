@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.openlattice.scrunchie.search.ElasticsearchTransportClientFactory
+import org.elasticsearch.client.Client
+import org.slf4j.LoggerFactory
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+import java.util.function.Consumer
+
+private val logger = LoggerFactory.getLogger(ElasticsearchConnectionMonitor::class.java)
+
+enum class ElasticsearchConnectionState {
+    /**
+     * The last health check succeeded.
+     */
+    CONNECTED,
+
+    /**
+     * Recent health checks failed, but fewer than the failure threshold in a row. Calls still go through.
+     */
+    DEGRADED,
+
+    /**
+     * The circuit is open: calls are refused without contacting the cluster while the monitor tries to connect a new
+     * client.
+     */
+    RECONNECTING
+}
+
+/**
+ * Tracks the health of the Elasticsearch connection on a background thread, so that search and index calls only read
+ * a volatile state instead of making a round trip to find out whether the cluster is up.
+ *
+ * Every [checkIntervalMillis] the monitor checks the current client. After [failureThreshold] failed checks in a row it
+ * opens the circuit and tries to connect a new client, backing off up to [maxReconnectBackoffMillis] between attempts.
+ * Once started, all state transitions happen on the monitor thread.
+ */
+class ElasticsearchConnectionMonitor(
+        private val factory: ElasticsearchTransportClientFactory,
+        val checkIntervalMillis: Long,
+        val failureThreshold: Int,
+        val maxReconnectBackoffMillis: Long
+) : AutoCloseable {
+    companion object {
+        const val DEFAULT_CHECK_INTERVAL_MILLIS = 10_000L
+        const val DEFAULT_FAILURE_THRESHOLD = 3
+        const val DEFAULT_MAX_RECONNECT_BACKOFF_MILLIS = 5 * 60_000L
+    }
+
+    private val currentState = AtomicReference(ElasticsearchConnectionState.RECONNECTING)
+    private val executor = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder().setDaemon(true).setNameFormat("elasticsearch-connection-monitor").build()
+    )
+
+    @Volatile
+    private var client: Client? = null
+    private var onReconnect: Consumer<Client> = Consumer {}
+    private var consecutiveFailures = 0
+    private var reconnectBackoffMillis = 0L
+
+    init {
+        check(checkIntervalMillis > 0) { "Check interval must be positive." }
+        check(failureThreshold > 0) { "Failure threshold must be positive." }
+        check(maxReconnectBackoffMillis >= checkIntervalMillis) {
+            "Maximum reconnect backoff cannot be shorter than the check interval."
+        }
+    }
+
+    fun getState(): ElasticsearchConnectionState = currentState.get()
+
+    /**
+     * Whether calls to the cluster should go through, which they do unless the circuit is open.
+     */
+    fun isAvailable(): Boolean = currentState.get() != ElasticsearchConnectionState.RECONNECTING
+
+    /**
+     * Creates a client for the cluster, which is null if it could not connect.
+     */
+    fun connect(): Client? = try {
+        factory.client
+    } catch (e: Exception) {
+        logger.error("Unable to connect to Elasticsearch.", e)
+        null
+    }
+
+    /**
+     * Starts monitoring [initialClient]. The monitor calls [onReconnect] from its own thread with every client it
+     * connects after the circuit opened.
+     */
+    fun start(initialClient: Client?, onReconnect: Consumer<Client>) {
+        this.client = initialClient
+        this.onReconnect = onReconnect
+        reconnectBackoffMillis = checkIntervalMillis
+        transition(
+                if (initialClient == null) {
+                    ElasticsearchConnectionState.RECONNECTING
+                } else {
+                    ElasticsearchConnectionState.CONNECTED
+                }
+        )
+        executor.schedule(this::check, checkIntervalMillis, TimeUnit.MILLISECONDS)
+    }
+
+    override fun close() {
+        executor.shutdownNow()
+    }
+
+    private fun check() {
+        var delayMillis = checkIntervalMillis
+        try {
+            if (currentState.get() == ElasticsearchConnectionState.RECONNECTING) {
+                delayMillis = reconnect()
+            } else if (isConnected(client)) {
+                consecutiveFailures = 0
+                transition(ElasticsearchConnectionState.CONNECTED)
+            } else if (++consecutiveFailures < failureThreshold) {
+                transition(ElasticsearchConnectionState.DEGRADED)
+            } else {
+                reconnectBackoffMillis = checkIntervalMillis
+                transition(ElasticsearchConnectionState.RECONNECTING)
+            }
+        } catch (e: Exception) {
+            logger.error("Unable to check the Elasticsearch connection.", e)
+        } finally {
+            if (!executor.isShutdown) {
+                executor.schedule(this::check, delayMillis, TimeUnit.MILLISECONDS)
+            }
+        }
+    }
+
+    /**
+     * Tries to connect a new client and returns how long to wait before the next check.
+     */
+    private fun reconnect(): Long {
+        val newClient = connect()
+        if (newClient != null && isConnected(newClient)) {
+            val previousClient = client
+            client = newClient
+            onReconnect.accept(newClient)
+            // Once nothing hands out the previous client anymore its connection pool and threads can go.
+            try {
+                previousClient?.close()
+            } catch (e: Exception) {
+                logger.warn("Unable to close the previous Elasticsearch client.", e)
+            }
+            consecutiveFailures = 0
+            transition(ElasticsearchConnectionState.CONNECTED)
+            return checkIntervalMillis
+        }
+        newClient?.close()
+
+        val delayMillis = reconnectBackoffMillis
+        reconnectBackoffMillis = (reconnectBackoffMillis * 2).coerceAtMost(maxReconnectBackoffMillis)
+        logger.info("Unable to reconnect to Elasticsearch. Retrying in {} ms.", delayMillis)
+        return delayMillis
+    }
+
+    private fun isConnected(client: Client?): Boolean = try {
+        client != null && factory.isConnected(client)
+    } catch (e: Exception) {
+        logger.warn("Elasticsearch health check failed.", e)
+        false
+    }
+
+    private fun transition(next: ElasticsearchConnectionState) {
+        val previous = currentState.getAndSet(next)
+        if (previous != next) {
+            if (next == ElasticsearchConnectionState.CONNECTED) {
+                logger.info("Elasticsearch connection is {} (was {}).", next, previous)
+            } else {
+                logger.warn("Elasticsearch connection is {} (was {}).", next, previous)
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.base.Preconditions.checkArgument
+import com.openlattice.controllers.exceptions.BadRequestException
+import com.openlattice.edm.EntitySet
+import com.openlattice.postgres.PostgresArrays
+import com.openlattice.postgres.PostgresColumn.*
+import com.openlattice.postgres.PostgresTable.IDS
+import com.openlattice.postgres.streams.BasePostgresIterable
+import com.openlattice.postgres.streams.PreparedStatementHolderSupplier
+import com.zaxxer.hikari.HikariDataSource
+import org.apache.olingo.commons.api.edm.FullQualifiedName
+import java.math.BigInteger
+import java.nio.ByteBuffer
+import java.util.*
+
+const val MAX_PAGE_SIZE = 10_000
+const val MAX_SLICES = 1_024
+
+/**
+ * Pages through the entity key ids of an entity set in id order using keyset pagination, so that reading a page costs
+ * the same regardless of how deep into the entity set it is.
+ *
+ * For linking entity sets the pages are made up of the distinct linking ids of the linked normal entity sets.
+ *
+ * Pages are addressed by an opaque [EntityKeyIdCursor] that carries the last id returned and, for sliced reads, the
+ * exclusive upper bound of the slice. Slices partition the id space into contiguous ranges so that several clients
+ * can read disjoint parts of the same entity set in parallel.
+ */
+class EntityKeyIdPager(
+        private val hds: HikariDataSource,
+        private val entitySetManager: EntitySetManager
+) {
+
+    fun getPage(entitySet: EntitySet, cursor: EntityKeyIdCursor, pageSize: Int): EntityKeyIdPage {
+        checkArgument(pageSize in 1..MAX_PAGE_SIZE, "Page size must be between 1 and %s.", MAX_PAGE_SIZE)
+
+        val entitySetIds = if (entitySet.isLinking) entitySet.linkedEntitySets else setOf(entitySet.id)
+        if (entitySetIds.isEmpty()) {
+            return EntityKeyIdPage(listOf(), null)
+        }
+        val partitions = if (entitySet.isLinking) {
+            entitySetManager.getEntitySetsAsMap(entitySetIds).values.flatMap { it.partitions }.toSet()
+        } else {
+            entitySet.partitions
+        }
+
+        val sql = if (entitySet.isLinking) LINKING_PAGE_SQL else PAGE_SQL
+        val ids = BasePostgresIterable(PreparedStatementHolderSupplier(hds, sql, pageSize) { ps ->
+            ps.setArray(1, PostgresArrays.createUuidArray(ps.connection, entitySetIds))
+            ps.setArray(2, PostgresArrays.createIntArray(ps.connection, partitions))
+            ps.setObject(3, cursor.after ?: MIN_ID)
+            ps.setObject(4, cursor.before ?: MAX_ID)
+            ps.setBoolean(5, cursor.before == null)
+            ps.setInt(6, pageSize)
+        }) { rs -> rs.getObject(1, UUID::class.java) }.toList()
+
+        val nextCursor = if (ids.size < pageSize) null else EntityKeyIdCursor(ids.last(), cursor.before)
+        return EntityKeyIdPage(ids, nextCursor?.encode())
+    }
+}
+
+data class EntityKeyIdPage(val ids: List<UUID>, val nextCursor: String?)
+
+data class EntitySetDataPage(val entities: List<Map<FullQualifiedName, Set<Any>>>, val nextCursor: String?)
+
+/**
+ * Position within an entity set. [after] is the exclusive lower bound, i.e. the last id already read, and [before]
+ * is the exclusive upper bound of the slice being read, if any.
+ */
+data class EntityKeyIdCursor(val after: UUID?, val before: UUID?) {
+
+    fun encode(): String {
+        val buffer = ByteBuffer.allocate(CURSOR_LENGTH)
+        putId(buffer, after)
+        putId(buffer, before)
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array())
+    }
+
+    companion object {
+        private const val CURSOR_LENGTH = 2 * (1 + 2 * java.lang.Long.BYTES)
+        private val UUID_SPACE = BigInteger.ONE.shiftLeft(64)
+
+        @JvmStatic
+        fun decode(cursor: String): EntityKeyIdCursor {
+            val bytes = try {
+                Base64.getUrlDecoder().decode(cursor)
+            } catch (e: IllegalArgumentException) {
+                throw BadRequestException("Malformed page cursor.")
+            }
+
+            if (bytes.size != CURSOR_LENGTH) {
+                throw BadRequestException("Malformed page cursor.")
+            }
+
+            val buffer = ByteBuffer.wrap(bytes)
+            val after = getId(buffer)
+            val before = getId(buffer)
+            if (after != null && before != null && compareIds(after, before) >= 0) {
+                throw BadRequestException("Malformed page cursor.")
+            }
+            return EntityKeyIdCursor(after, before)
+        }
+
+        /**
+         * Returns the cursor at the start of [slice] when the id space is split into [slices] contiguous ranges of
+         * equal width.
+         */
+        @JvmStatic
+        fun forSlice(slice: Int, slices: Int): EntityKeyIdCursor {
+            checkArgument(slices in 1..MAX_SLICES, "Number of slices must be between 1 and %s.", MAX_SLICES)
+            checkArgument(slice in 0 until slices, "Slice must be between 0 and %s.", slices - 1)
+
+            val after = if (slice == 0) null else UUID(boundary(slice, slices) - 1, -1L)
+            val before = if (slice == slices - 1) null else UUID(boundary(slice + 1, slices), 0L)
+            return EntityKeyIdCursor(after, before)
+        }
+
+        /**
+         * Most significant bits of the first id of [slice], computed unsigned since postgres compares uuids bytewise.
+         */
+        private fun boundary(slice: Int, slices: Int): Long {
+            return UUID_SPACE.multiply(BigInteger.valueOf(slice.toLong()))
+                    .divide(BigInteger.valueOf(slices.toLong()))
+                    .toLong()
+        }
+
+        private fun putId(buffer: ByteBuffer, id: UUID?) {
+            buffer.put(if (id == null) 0 else 1)
+            buffer.putLong(id?.mostSignificantBits ?: 0L)
+            buffer.putLong(id?.leastSignificantBits ?: 0L)
+        }
+
+        /**
+         * Reads an id written by [putId], rejecting anything [putId] could not have written.
+         */
+        private fun getId(buffer: ByteBuffer): UUID? {
+            val present = buffer.get().toInt()
+            val id = UUID(buffer.long, buffer.long)
+            return when {
+                present == 1 -> id
+                present == 0 && id == MIN_ID -> null
+                else -> throw BadRequestException("Malformed page cursor.")
+            }
+        }
+
+        /**
+         * Compares ids the way postgres does, i.e. bytewise and so unsigned.
+         */
+        private fun compareIds(a: UUID, b: UUID): Int {
+            val mostSignificant = java.lang.Long.compareUnsigned(a.mostSignificantBits, b.mostSignificantBits)
+            return if (mostSignificant != 0) {
+                mostSignificant
+            } else {
+                java.lang.Long.compareUnsigned(a.leastSignificantBits, b.leastSignificantBits)
+            }
+        }
+    }
+}
+
+private val MIN_ID = UUID(0L, 0L)
+private val MAX_ID = UUID(-1L, -1L)
+
+/**
+ * 1. entity set ids
+ * 2. partitions
+ * 3. exclusive lower bound
+ * 4. exclusive upper bound
+ * 5. whether the upper bound is open
+ * 6. page size
+ */
+private val PAGE_SQL = """
+    SELECT ${ID.name}
+    FROM ${IDS.name}
+    WHERE ${ENTITY_SET_ID.name} = ANY(?)
+      AND ${PARTITION.name} = ANY(?)
+      AND ${VERSION.name} > 0
+      AND ${ID.name} > ?
+      AND (${ID.name} < ? OR ?)
+    ORDER BY ${ID.name}
+    LIMIT ?
+""".trimIndent()
+
+private val LINKING_PAGE_SQL = """
+    SELECT DISTINCT ${LINKING_ID.name}
+    FROM ${IDS.name}
+    WHERE ${ENTITY_SET_ID.name} = ANY(?)
+      AND ${PARTITION.name} = ANY(?)
+      AND ${VERSION.name} > 0
+      AND ${LINKING_ID.name} IS NOT NULL
+      AND ${LINKING_ID.name} > ?
+      AND (${LINKING_ID.name} < ? OR ?)
+    ORDER BY ${LINKING_ID.name}
+    LIMIT ?
+""".trimIndent()
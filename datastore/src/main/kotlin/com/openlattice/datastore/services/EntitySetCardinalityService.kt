@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.hazelcast.core.HazelcastInstance
+import com.hazelcast.map.IMap
+import com.openlattice.edm.EntitySet
+import com.openlattice.postgres.PostgresArrays
+import com.openlattice.postgres.PostgresColumn.*
+import com.openlattice.postgres.PostgresTable.IDS
+import com.openlattice.postgres.streams.BasePostgresIterable
+import com.openlattice.postgres.streams.PreparedStatementHolderSupplier
+import com.zaxxer.hikari.HikariDataSource
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+private val logger = LoggerFactory.getLogger(EntitySetCardinalityService::class.java)
+
+private const val COUNT = 0
+private const val RECONCILED_AT = 1
+
+/**
+ * Answers entity set size requests from counts kept in Hazelcast instead of counting the entity set every time.
+ *
+ * Counts of normal entity sets are seeded with an exact count, incremented as entities are created through this node
+ * and dropped whenever entities are deleted, so the next request counts again. Every count is also recounted once it
+ * is older than [reconcileAfterSeconds], which bounds the drift from writes that bypass the datastore.
+ *
+ * Sizes of linking entity sets are estimated by merging HyperLogLog sketches of the linking ids of each linked entity
+ * set, so that no request has to compute a distinct count of linking ids in Postgres and a sketch built for one normal
+ * entity set is shared by every linking entity set that links it. Since linking ids are assigned after the fact by the
+ * linker, sketches are only rebuilt once they are older than [reconcileAfterSeconds] or after a delete.
+ */
+class EntitySetCardinalityService(
+        hazelcast: HazelcastInstance,
+        private val hds: HikariDataSource,
+        private val entitySetManager: EntitySetManager,
+        private val reconcileAfterSeconds: Long
+) {
+    companion object {
+        const val COUNTS_MAP = "datastore_entity_set_counts"
+        const val LINKING_ID_SKETCHES_MAP = "datastore_linking_id_sketches"
+        const val DEFAULT_RECONCILE_AFTER_SECONDS = 15 * 60L
+    }
+
+    /**
+     * Values are the count and the time it was last reconciled, as a long array so they can be compared and swapped
+     * atomically.
+     */
+    private val counts: IMap<UUID, LongArray> = hazelcast.getMap(COUNTS_MAP)
+    private val sketches: IMap<UUID, ByteArray> = hazelcast.getMap(LINKING_ID_SKETCHES_MAP)
+
+    /**
+     * @param exact Whether to count the entity set in Postgres instead of answering from the kept counts.
+     */
+    fun getEntitySetSize(entitySet: EntitySet, exact: Boolean): Long {
+        if (exact) {
+            val size = entitySetManager.getEntitySetSize(entitySet.id)
+            if (!entitySet.isLinking) {
+                counts.set(entitySet.id, longArrayOf(size, System.currentTimeMillis()))
+            }
+            return size
+        }
+
+        return if (entitySet.isLinking) {
+            estimateLinkingEntitySetSize(entitySet)
+        } else {
+            getCount(entitySet.id)
+        }
+    }
+
+    fun entitiesCreated(entitySetId: UUID, count: Int) {
+        if (count == 0) {
+            return
+        }
+
+        while (true) {
+            val current = counts[entitySetId] ?: return
+            val updated = longArrayOf(current[COUNT] + count, current[RECONCILED_AT])
+            if (counts.replace(entitySetId, current, updated)) {
+                return
+            }
+        }
+    }
+
+    /**
+     * Deleting doesn't report how many entities went away, so the count and sketch of the entity set are dropped and
+     * rebuilt by the next request.
+     */
+    fun entitiesDeleted(entitySetId: UUID) {
+        counts.delete(entitySetId)
+        sketches.delete(entitySetId)
+    }
+
+    private fun getCount(entitySetId: UUID): Long {
+        val current = counts[entitySetId]
+        if (current != null && !isStale(current[RECONCILED_AT])) {
+            return current[COUNT]
+        }
+
+        val size = entitySetManager.getEntitySetSize(entitySetId)
+        counts.set(entitySetId, longArrayOf(size, System.currentTimeMillis()))
+        return size
+    }
+
+    private fun estimateLinkingEntitySetSize(entitySet: EntitySet): Long {
+        val union = HyperLogLog()
+        entitySet.linkedEntitySets.forEach { union.merge(getLinkingIdSketch(it)) }
+        return union.estimate()
+    }
+
+    private fun getLinkingIdSketch(entitySetId: UUID): HyperLogLog {
+        val current = sketches[entitySetId]
+        if (current != null) {
+            return HyperLogLog(current)
+        }
+
+        val entitySet = entitySetManager.getEntitySet(entitySetId)
+                ?: return HyperLogLog()
+
+        val start = System.currentTimeMillis()
+        val sketch = HyperLogLog()
+        BasePostgresIterable(PreparedStatementHolderSupplier(hds, LINKING_IDS_SQL, FETCH_SIZE) { ps ->
+            ps.setObject(1, entitySetId)
+            ps.setArray(2, PostgresArrays.createIntArray(ps.connection, entitySet.partitions))
+        }) { rs -> rs.getObject(1, UUID::class.java) }.forEach { sketch.add(it) }
+
+        sketches.set(entitySetId, sketch.toByteArray(), reconcileAfterSeconds, TimeUnit.SECONDS)
+        logger.info(
+                "Built linking id sketch of entity set {} in {} ms.",
+                entitySetId,
+                System.currentTimeMillis() - start
+        )
+        return sketch
+    }
+
+    private fun isStale(reconciledAt: Long): Boolean {
+        return System.currentTimeMillis() - reconciledAt > TimeUnit.SECONDS.toMillis(reconcileAfterSeconds)
+    }
+}
+
+private const val FETCH_SIZE = 10_000
+
+/**
+ * Streams the linking ids of an entity set without de-duplicating them, which is left to the sketch.
+ */
+private val LINKING_IDS_SQL = """
+    SELECT ${LINKING_ID.name}
+    FROM ${IDS.name}
+    WHERE ${ENTITY_SET_ID.name} = ?
+      AND ${PARTITION.name} = ANY(?)
+      AND ${VERSION.name} > 0
+      AND ${LINKING_ID.name} IS NOT NULL
+""".trimIndent()
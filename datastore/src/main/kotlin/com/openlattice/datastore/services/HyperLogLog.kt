@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.base.Preconditions.checkArgument
+import com.google.common.hash.Hashing
+import java.util.*
+import kotlin.math.ln
+
+private const val PRECISION = 14
+private const val REGISTERS = 1 shl PRECISION
+private const val ALPHA = 0.7213 / (1 + 1.079 / REGISTERS)
+
+private val hashFunction = Hashing.murmur3_128()
+
+/**
+ * A HyperLogLog sketch of a set of ids, estimating the number of distinct ids with a standard error of about 0.8%
+ * in 16 kB, regardless of how many ids were added.
+ *
+ * Sketches of different sets can be merged into a sketch of their union, which is what makes it possible to estimate
+ * distinct counts across entity sets from sketches kept per entity set.
+ */
+class HyperLogLog(private val registers: ByteArray = ByteArray(REGISTERS)) {
+    init {
+        checkArgument(registers.size == REGISTERS, "A sketch must have %s registers.", REGISTERS)
+    }
+
+    fun add(id: UUID) {
+        val hash = hashFunction.newHasher()
+                .putLong(id.mostSignificantBits)
+                .putLong(id.leastSignificantBits)
+                .hash()
+                .asLong()
+        val register = (hash ushr (java.lang.Long.SIZE - PRECISION)).toInt()
+        val rank = (java.lang.Long.numberOfLeadingZeros((hash shl PRECISION) or (1L shl (PRECISION - 1))) + 1)
+                .toByte()
+        if (registers[register] < rank) {
+            registers[register] = rank
+        }
+    }
+
+    fun merge(other: HyperLogLog) {
+        for (i in registers.indices) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i]
+            }
+        }
+    }
+
+    fun estimate(): Long {
+        var sum = 0.0
+        var zeros = 0
+        registers.forEach {
+            sum += 1.0 / (1L shl it.toInt())
+            if (it.toInt() == 0) {
+                zeros++
+            }
+        }
+
+        val estimate = ALPHA * REGISTERS * REGISTERS / sum
+        return if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities.
+            (REGISTERS * ln(REGISTERS.toDouble() / zeros)).toLong()
+        } else {
+            estimate.toLong()
+        }
+    }
+
+    fun toByteArray(): ByteArray = registers.copyOf()
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.fasterxml.jackson.core.type.TypeReference
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.MapperFeature
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.google.common.hash.Hashing
+import com.google.common.hash.HashingOutputStream
+import com.google.common.io.ByteStreams
+import com.hazelcast.core.HazelcastInstance
+import com.hazelcast.map.IMap
+import com.openlattice.controllers.exceptions.BadRequestException
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+
+private val logger = LoggerFactory.getLogger(IdempotentWriteService::class.java)
+
+private const val FINGERPRINT = "fingerprint"
+private const val RESULT = "result"
+
+/**
+ * Remembers the results of completed bulk writes by client supplied idempotency key, so that a client retrying a
+ * write, e.g. after a timeout, gets the result of the original write back instead of redoing the write and its
+ * auditing.
+ *
+ * Results are kept in a Hazelcast map shared by all nodes and evicted [ttlSeconds] after the write completed. Keys are
+ * scoped to the principal and the operation, and each result is stored with a fingerprint of the request it answers,
+ * so reusing a key for a different request is rejected instead of silently returning an unrelated result. The
+ * fingerprint is the SHA-256 of the request serialized as json with sorted keys, so it is the same on every node. Results
+ * longer than [maxResultLength] characters are not remembered, which keeps every entry bounded in size.
+ *
+ * Concurrent writes with the same key are serialized with a lock on the key, so a retry that arrives while the
+ * original write is still running waits for it for up to [lockWaitSeconds] and then returns its result.
+ */
+class IdempotentWriteService(
+        hazelcast: HazelcastInstance,
+        private val mapper: ObjectMapper,
+        private val ttlSeconds: Long,
+        private val lockWaitSeconds: Long,
+        private val lockLeaseSeconds: Long,
+        private val maxResultLength: Int
+) {
+    companion object {
+        const val IDEMPOTENT_WRITES_MAP = "datastore_idempotent_writes"
+        const val DEFAULT_TTL_SECONDS = 24 * 60 * 60L
+        const val DEFAULT_LOCK_WAIT_SECONDS = 30L
+        const val DEFAULT_LOCK_LEASE_SECONDS = 60 * 60L
+        const val DEFAULT_MAX_RESULT_LENGTH = 16 * 1024 * 1024
+        const val MAX_KEY_LENGTH = 255
+    }
+
+    private val completedWrites: IMap<String, String> = hazelcast.getMap(IDEMPOTENT_WRITES_MAP)
+
+    private val fingerprintMapper = mapper.copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+
+    /**
+     * Runs the write unless a write with the same key, principal and operation already completed, in which case its
+     * result is returned instead.
+     *
+     * @param idempotencyKey The key supplied by the client or null to always run the write.
+     * @param request The request body, which is fingerprinted to detect reuse of the key for a different request.
+     */
+    fun <T> execute(
+            idempotencyKey: String?,
+            principalId: UUID,
+            operation: String,
+            request: Any,
+            resultType: TypeReference<T>,
+            write: Supplier<T>
+    ): T {
+        if (idempotencyKey == null) {
+            return write.get()
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length > MAX_KEY_LENGTH) {
+            throw BadRequestException("Idempotency key must be between 1 and $MAX_KEY_LENGTH characters.")
+        }
+
+        val key = "$principalId/$operation/$idempotencyKey"
+        val fingerprint = fingerprint(request)
+
+        val locked = completedWrites.tryLock(
+                key, lockWaitSeconds, TimeUnit.SECONDS, lockLeaseSeconds, TimeUnit.SECONDS
+        )
+        if (!locked) {
+            throw BadRequestException("A write with idempotency key $idempotencyKey is still in progress.")
+        }
+
+        try {
+            val completedWrite = completedWrites[key]
+            if (completedWrite != null) {
+                return replay(idempotencyKey, completedWrite, fingerprint, resultType)
+            }
+
+            val result = write.get()
+            remember(key, fingerprint, result)
+            return result
+        } finally {
+            completedWrites.unlock(key)
+        }
+    }
+
+    private fun <T> replay(
+            idempotencyKey: String,
+            completedWrite: String,
+            fingerprint: String,
+            resultType: TypeReference<T>
+    ): T {
+        val node = mapper.readTree(completedWrite)
+        if (node.get(FINGERPRINT).asText() != fingerprint) {
+            throw BadRequestException("Idempotency key $idempotencyKey was already used for a different request.")
+        }
+
+        logger.info("Returning result of completed write with idempotency key {}.", idempotencyKey)
+        return mapper.convertValue(node.get(RESULT), resultType)
+    }
+
+    /**
+     * Hashes the request as it is serialized, so that a large body is never held in memory as a whole.
+     */
+    private fun fingerprint(request: Any): String {
+        val hashing = HashingOutputStream(Hashing.sha256(), ByteStreams.nullOutputStream())
+        fingerprintMapper.writeValue(hashing, request)
+        return hashing.hash().toString()
+    }
+
+    private fun remember(key: String, fingerprint: String, result: Any?) {
+        val completedWrite = mapper.writeValueAsString(
+                mapper.createObjectNode()
+                        .put(FINGERPRINT, fingerprint)
+                        .set<JsonNode>(RESULT, mapper.valueToTree<JsonNode>(result))
+        )
+
+        if (completedWrite.length > maxResultLength) {
+            logger.warn(
+                    "Not remembering result of write {} since it is longer than {} characters.", key, maxResultLength
+            )
+            return
+        }
+
+        completedWrites.set(key, completedWrite, ttlSeconds, TimeUnit.SECONDS)
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.MoreExecutors
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.openlattice.data.DataGraphManager
+import com.openlattice.data.EntitySetData
+import com.openlattice.edm.EdmConstants.Companion.ID_FQN
+import com.openlattice.edm.EntitySet
+import com.openlattice.edm.type.PropertyType
+import org.apache.olingo.commons.api.edm.FullQualifiedName
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+
+private val logger = LoggerFactory.getLogger(LinkingEntitySetReader::class.java)
+
+/**
+ * Reads linking entity sets by fanning out one read per linked normal entity set instead of issuing a single read
+ * that spans all of them, so that a linking entity set with many members is not bound by one serial query.
+ *
+ * Reads run on a dedicated bounded pool. Each request additionally caps how many of its reads run at once: the normal
+ * entity sets are split into at most `parallelism` groups and each group is read sequentially by one task. Results are
+ * merged by linking id as each read produces them.
+ *
+ * Whole entity set reads walk the linking ids in order one page at a time using [EntityKeyIdPager], so entities are
+ * emitted in linking id order and at most one page of merged entities is held in memory.
+ */
+class LinkingEntitySetReader(
+        private val dgm: DataGraphManager,
+        private val pager: EntityKeyIdPager,
+        poolSize: Int
+) {
+    companion object {
+        const val DEFAULT_POOL_SIZE = 32
+        const val DEFAULT_PARALLELISM = 8
+        const val MAX_PARALLELISM = 32
+        private const val PAGE_SIZE = 1_000
+    }
+
+    private val executor = MoreExecutors.listeningDecorator(
+            Executors.newFixedThreadPool(
+                    poolSize,
+                    ThreadFactoryBuilder().setNameFormat("linking-entity-set-reader-%d").setDaemon(true).build()
+            )
+    )
+
+    /**
+     * @param linkingIds The linking ids to read or empty to read the whole linking entity set.
+     * @param authorizedPropertyTypes The authorized property types keyed by normal entity set id.
+     */
+    fun getEntitySetData(
+            linkingEntitySet: EntitySet,
+            linkingIds: Optional<Set<UUID>>,
+            orderedPropertyNames: LinkedHashSet<String>,
+            authorizedPropertyTypes: Map<UUID, Map<UUID, PropertyType>>,
+            parallelism: Int
+    ): EntitySetData<FullQualifiedName> {
+        val entities = if (linkingIds.isPresent) {
+            readLinkingIds(
+                    linkingIds.get().sorted(), orderedPropertyNames, authorizedPropertyTypes, parallelism
+            )
+        } else {
+            generateSequence(pager.getPage(linkingEntitySet, EntityKeyIdCursor(null, null), PAGE_SIZE)) { page ->
+                page.nextCursor?.let { pager.getPage(linkingEntitySet, EntityKeyIdCursor.decode(it), PAGE_SIZE) }
+            }.flatMap { page ->
+                readLinkingIds(page.ids, orderedPropertyNames, authorizedPropertyTypes, parallelism)
+            }
+        }
+
+        return EntitySetData(orderedPropertyNames, entities.asIterable())
+    }
+
+    fun getLinkingEntity(
+            linkingId: UUID,
+            authorizedPropertyTypes: Map<UUID, Map<UUID, PropertyType>>,
+            parallelism: Int
+    ): Map<FullQualifiedName, Set<Any>> {
+        val merged = ConcurrentHashMap<FullQualifiedName, MutableSet<Any>>()
+
+        fanOut(authorizedPropertyTypes.keys, parallelism) { entitySetId ->
+            dgm.getLinkingEntity(
+                    setOf(entitySetId),
+                    linkingId,
+                    mapOf(entitySetId to authorizedPropertyTypes.getValue(entitySetId))
+            ).forEach { (fqn, values) -> merged.computeIfAbsent(fqn) { ConcurrentHashMap.newKeySet() }.addAll(values) }
+        }
+
+        return merged
+    }
+
+    fun getLinkedEntitySetBreakDown(
+            linkingIdsByEntitySetId: Map<UUID, Optional<Set<UUID>>>,
+            authorizedPropertyTypes: Map<UUID, Map<UUID, PropertyType>>,
+            parallelism: Int
+    ): Map<UUID, Map<UUID, Map<UUID, Map<FullQualifiedName, Set<Any>>>>> {
+        val merged = ConcurrentHashMap<UUID, MutableMap<UUID, Map<UUID, Map<FullQualifiedName, Set<Any>>>>>()
+
+        fanOut(linkingIdsByEntitySetId.keys, parallelism) { entitySetId ->
+            dgm.getLinkedEntitySetBreakDown(
+                    mapOf(entitySetId to linkingIdsByEntitySetId.getValue(entitySetId)),
+                    mapOf(entitySetId to authorizedPropertyTypes.getValue(entitySetId))
+            ).forEach { (linkingId, entitiesByEntitySetId) ->
+                merged.computeIfAbsent(linkingId) { ConcurrentHashMap() }.putAll(entitiesByEntitySetId)
+            }
+        }
+
+        return merged.toSortedMap()
+    }
+
+    private fun readLinkingIds(
+            linkingIds: List<UUID>,
+            orderedPropertyNames: LinkedHashSet<String>,
+            authorizedPropertyTypes: Map<UUID, Map<UUID, PropertyType>>,
+            parallelism: Int
+    ): Sequence<Map<FullQualifiedName, Set<Any>>> {
+        if (linkingIds.isEmpty()) {
+            return emptySequence()
+        }
+
+        val selectedLinkingIds = Optional.of(linkingIds.toSet())
+        val merged = ConcurrentHashMap<UUID, MutableMap<FullQualifiedName, MutableSet<Any>>>(linkingIds.size)
+
+        fanOut(authorizedPropertyTypes.keys, parallelism) { entitySetId ->
+            dgm.getEntitySetData(
+                    mapOf(entitySetId to selectedLinkingIds),
+                    orderedPropertyNames,
+                    mapOf(entitySetId to authorizedPropertyTypes.getValue(entitySetId)),
+                    true
+            ).entities.forEach { entity ->
+                val linkingId = UUID.fromString(entity.getValue(ID_FQN).first().toString())
+                merged.compute(linkingId) { _, current ->
+                    val mergedEntity = current ?: mutableMapOf()
+                    entity.forEach { (fqn, values) -> mergedEntity.getOrPut(fqn) { mutableSetOf() }.addAll(values) }
+                    mergedEntity
+                }
+            }
+        }
+
+        return linkingIds.asSequence().mapNotNull { merged[it] }
+    }
+
+    private fun fanOut(entitySetIds: Set<UUID>, parallelism: Int, read: (UUID) -> Unit) {
+        val width = parallelism.coerceIn(1, MAX_PARALLELISM)
+        val groups = entitySetIds.withIndex().groupBy({ it.index % width }, { it.value }).values
+
+        try {
+            Futures.allAsList(groups.map { group -> executor.submit(Callable { group.forEach(read) }) }).get()
+        } catch (e: ExecutionException) {
+            logger.error("Unable to read normal entity sets {}.", entitySetIds, e.cause)
+            throw e.cause as? RuntimeException ?: IllegalStateException(e.cause)
+        }
+    }
+}
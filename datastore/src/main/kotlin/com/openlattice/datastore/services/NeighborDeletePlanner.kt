@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.openlattice.authorization.AclKey
+import com.openlattice.authorization.AuthorizationManager
+import com.openlattice.authorization.Permission
+import com.openlattice.authorization.Principal
+import com.openlattice.controllers.exceptions.ForbiddenException
+import com.openlattice.data.WriteEvent
+import com.openlattice.datastore.data.NeighborDeletePlan
+import com.openlattice.search.SearchService
+import com.openlattice.search.requests.EntityNeighborsFilter
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.function.BiFunction
+
+private val logger = LoggerFactory.getLogger(NeighborDeletePlanner::class.java)
+
+/**
+ * Plans and executes deletes of entities together with their neighbors in the src/dst entity sets of an
+ * [EntityNeighborsFilter] and the associations connecting them.
+ *
+ * A plan is computed with one neighborhood traversal of the entities of the filter. A dry run only reports its row
+ * counts, and executing it deletes exactly the planned entities, without traversing the neighborhood again.
+ *
+ * The traversal only finds neighbors in entity sets the caller can read, so src/dst entity sets of the filter that the
+ * caller can't read are listed in the plan as skipped, and a plan with skipped entity sets can't be executed.
+ */
+class NeighborDeletePlanner(
+        private val searchService: SearchService,
+        private val authorizationManager: AuthorizationManager
+) {
+
+    fun plan(entitySetId: UUID, filter: EntityNeighborsFilter, principals: Set<Principal>): NeighborDeletePlan {
+        val srcEntitySetIds = filter.srcEntitySetIds.orElse(setOf())
+        val dstEntitySetIds = filter.dstEntitySetIds.orElse(setOf())
+
+        // Traverse without the src/dst restrictions, since every association of a deleted entity is deleted with it.
+        val neighborhood = searchService.executeEntityNeighborIdsSearch(
+                setOf(entitySetId),
+                EntityNeighborsFilter(filter.entityKeyIds),
+                principals
+        )
+
+        val neighbors = mutableMapOf<UUID, MutableSet<UUID>>()
+        val associations = mutableMapOf<UUID, MutableSet<UUID>>()
+
+        neighborhood.values.forEach { neighborsByAssociationEntitySet ->
+            neighborsByAssociationEntitySet.forEach { (associationEntitySetId, neighborsByEntitySet) ->
+                neighborsByEntitySet.entries().forEach { (neighborEntitySetId, ids) ->
+                    associations.getOrPut(associationEntitySetId) { mutableSetOf() }.add(ids.associationEntityKeyId)
+
+                    // isSrc is true when the entity of the filter is the src of the edge, so the neighbor is its dst.
+                    val deleteNeighbor = if (ids.isSrc) {
+                        dstEntitySetIds.contains(neighborEntitySetId)
+                    } else {
+                        srcEntitySetIds.contains(neighborEntitySetId)
+                    }
+                    if (deleteNeighbor) {
+                        neighbors.getOrPut(neighborEntitySetId) { mutableSetOf() }.add(ids.neighborEntityKeyId)
+                    }
+                }
+            }
+        }
+
+        return NeighborDeletePlan(
+                entitySetId,
+                filter.entityKeyIds,
+                neighbors,
+                associations,
+                unreadableEntitySetIds(srcEntitySetIds + dstEntitySetIds, principals)
+        )
+    }
+
+    /**
+     * Deletes the associations of the plan first, then the neighbors and finally the entities of the filter, so that
+     * an execution that fails part way never leaves associations pointing at deleted entities.
+     *
+     * @param delete Deletes the given entities of an entity set.
+     * @return The total number of updates.
+     */
+    fun execute(plan: NeighborDeletePlan, delete: BiFunction<UUID, Set<UUID>, WriteEvent>): Int {
+        if (plan.skippedEntitySetIds.isNotEmpty()) {
+            throw ForbiddenException(
+                    "Unable to delete neighbors in entity sets ${plan.skippedEntitySetIds}, which can't be read."
+            )
+        }
+
+        var numUpdates = 0
+        plan.associationEntityKeyIds.forEach { (entitySetId, ids) ->
+            numUpdates += delete.apply(entitySetId, ids).numUpdates
+        }
+        plan.neighborEntityKeyIds.forEach { (entitySetId, ids) ->
+            numUpdates += delete.apply(entitySetId, ids).numUpdates
+        }
+        if (plan.entityKeyIds.isNotEmpty()) {
+            numUpdates += delete.apply(plan.entitySetId, plan.entityKeyIds).numUpdates
+        }
+
+        logger.info("Executed neighbor delete plan for entity set {} with {} updates.", plan.entitySetId, numUpdates)
+        return numUpdates
+    }
+
+    private fun unreadableEntitySetIds(entitySetIds: Set<UUID>, principals: Set<Principal>): Set<UUID> {
+        if (entitySetIds.isEmpty()) {
+            return setOf()
+        }
+
+        val authorized = authorizationManager.authorize(
+                entitySetIds.associate { AclKey(it) to EnumSet.of(Permission.READ) },
+                principals
+        )
+        return entitySetIds.filterTo(mutableSetOf()) { authorized[AclKey(it)]?.get(Permission.READ) != true }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.MoreExecutors
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.openlattice.controllers.exceptions.wrappers.BatchException
+import com.openlattice.controllers.exceptions.wrappers.ErrorsDTO
+import com.openlattice.controllers.util.ApiExceptions
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.ToIntFunction
+
+private val logger = LoggerFactory.getLogger(ParallelEntitySetWriter::class.java)
+
+/**
+ * Runs independent writes to several entity sets concurrently on a dedicated bounded pool, so that a request touching
+ * many entity sets takes about as long as its slowest entity set instead of the sum of all of them.
+ *
+ * Each request runs at most `parallelism` writes at once, each worker taking the next entity set as soon as it is
+ * done with its current one. A failing entity set doesn't stop the others: once all writes are done, the failures are
+ * reported together as a [BatchException], while the writes to the other entity sets stay in place.
+ */
+class ParallelEntitySetWriter(poolSize: Int) {
+    companion object {
+        const val DEFAULT_POOL_SIZE = 32
+        const val DEFAULT_PARALLELISM = 4
+        const val MAX_PARALLELISM = 16
+    }
+
+    private val executor = MoreExecutors.listeningDecorator(
+            Executors.newFixedThreadPool(
+                    poolSize,
+                    ThreadFactoryBuilder().setNameFormat("parallel-entity-set-writer-%d").setDaemon(true).build()
+            )
+    )
+
+    /**
+     * @return The sum of the results of the writes.
+     */
+    fun sum(entitySetIds: Set<UUID>, parallelism: Int, write: ToIntFunction<UUID>): Int {
+        val remaining = ConcurrentLinkedQueue(entitySetIds)
+        val total = AtomicInteger()
+        val errors = ConcurrentHashMap<UUID, Exception>()
+
+        val worker = Runnable {
+            generateSequence { remaining.poll() }.forEach { entitySetId ->
+                try {
+                    total.addAndGet(write.applyAsInt(entitySetId))
+                } catch (e: Exception) {
+                    logger.error("Unable to write to entity set {}.", entitySetId, e)
+                    errors[entitySetId] = e
+                }
+            }
+        }
+
+        val width = parallelism.coerceIn(1, MAX_PARALLELISM).coerceAtMost(entitySetIds.size)
+        if (width <= 1) {
+            worker.run()
+        } else {
+            Futures.allAsList((1..width).map { executor.submit(Callable { worker.run() }) }).get()
+        }
+
+        if (errors.isNotEmpty()) {
+            logger.warn(
+                    "Wrote {} updates to {} entity sets, but failed to write to entity sets {}.",
+                    total.get(),
+                    entitySetIds.size - errors.size,
+                    errors.keys
+            )
+            val dto = ErrorsDTO()
+            errors.forEach { (entitySetId, e) ->
+                dto.addError(ApiExceptions.OTHER_EXCEPTION, "$entitySetId: ${e.message}")
+            }
+            throw BatchException(dto)
+        }
+
+        return total.get()
+    }
+}
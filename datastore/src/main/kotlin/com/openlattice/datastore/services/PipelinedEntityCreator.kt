@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.google.common.util.concurrent.ListenableFuture
+import com.google.common.util.concurrent.ListeningExecutorService
+import com.openlattice.data.EntityKeyIdService
+import com.openlattice.data.WriteEvent
+import com.openlattice.data.storage.EntityDatastore
+import com.openlattice.edm.type.PropertyType
+import org.apache.commons.lang3.tuple.Pair
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+
+private val logger = LoggerFactory.getLogger(PipelinedEntityCreator::class.java)
+
+/**
+ * Creates large batches of entities in chunks, reserving the entity key ids of the next chunks on the executor while
+ * the current chunk is written to storage, instead of reserving ids for and writing the whole batch in one go.
+ *
+ * The configured [chunkSize] and [pipelineDepth] are the defaults, which can be overridden per request. At most
+ * `pipelineDepth` reservations run ahead of the chunk being written. Chunks are written in order on the
+ * calling thread, so the returned entity key ids line up with the input entities. Each chunk is a separate write, so
+ * a failure leaves the chunks before it in place.
+ */
+class PipelinedEntityCreator(
+        private val idService: EntityKeyIdService,
+        private val eds: EntityDatastore,
+        private val executor: ListeningExecutorService,
+        val chunkSize: Int,
+        val pipelineDepth: Int
+) {
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 10_000
+        const val DEFAULT_PIPELINE_DEPTH = 2
+        const val MAX_CHUNK_SIZE = 100_000
+        const val MAX_PIPELINE_DEPTH = 8
+    }
+
+    init {
+        check(chunkSize in 1..MAX_CHUNK_SIZE) { "Chunk size must be between 1 and $MAX_CHUNK_SIZE." }
+        check(pipelineDepth in 1..MAX_PIPELINE_DEPTH) { "Pipeline depth must be between 1 and $MAX_PIPELINE_DEPTH." }
+    }
+
+    fun createEntities(
+            entitySetId: UUID,
+            entities: List<Map<UUID, Set<Any>>>,
+            authorizedPropertyTypes: Map<UUID, PropertyType>,
+            chunkSize: Int,
+            pipelineDepth: Int
+    ): Pair<List<UUID>, WriteEvent> {
+        val chunks = entities.chunked(chunkSize.coerceIn(1, MAX_CHUNK_SIZE))
+        val depth = pipelineDepth.coerceIn(1, MAX_PIPELINE_DEPTH)
+
+        val reservations = ArrayDeque<ListenableFuture<List<UUID>>>(depth + 1)
+        var nextReservation = 0
+        val reserveAhead = {
+            while (nextReservation < chunks.size && reservations.size <= depth) {
+                val count = chunks[nextReservation++].size
+                reservations.add(executor.submit(Callable { idService.reserveIds(entitySetId, count) }))
+            }
+        }
+
+        val entityKeyIds = ArrayList<UUID>(entities.size)
+        val writeEvents = ArrayList<WriteEvent>(chunks.size)
+
+        try {
+            chunks.forEach { chunk ->
+                reserveAhead()
+                val chunkIds = reservations.poll().get()
+                reserveAhead()
+
+                writeEvents.add(
+                        eds.createOrUpdateEntities(entitySetId, chunkIds.zip(chunk).toMap(), authorizedPropertyTypes)
+                )
+                entityKeyIds.addAll(chunkIds)
+            }
+        } catch (e: ExecutionException) {
+            logger.error("Unable to reserve entity key ids for entity set {}.", entitySetId, e.cause)
+            throw e.cause as? RuntimeException ?: IllegalStateException(e.cause)
+        } finally {
+            reservations.forEach { it.cancel(false) }
+        }
+
+        logger.info(
+                "Created {} entities in entity set {} in {} chunks.", entityKeyIds.size, entitySetId, chunks.size
+        )
+
+        val writeEvent = WriteEvent(
+                writeEvents.map { it.version }.max() ?: System.currentTimeMillis(),
+                writeEvents.sumBy { it.numUpdates }
+        )
+        return Pair.of(entityKeyIds, writeEvent)
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.codahale.metrics.MetricRegistry
+import com.dataloom.mappers.ObjectMappers
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.hash.HashCode
+import com.google.common.hash.Hasher
+import com.google.common.hash.Hashing
+import com.openlattice.search.requests.EntityDataKeySearchResult
+import com.openlattice.search.requests.SearchConstraints
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Supplier
+
+private val logger = LoggerFactory.getLogger(SearchResultCache::class.java)
+
+private const val PREFIX = "datastore.search.cache"
+
+/**
+ * Remembers the results of entity data searches for [expireAfterWriteSeconds], so that searches repeated by dashboards
+ * every few seconds don't each go to Elasticsearch.
+ *
+ * Results are keyed on the search constraints, serialized with sorted map keys, and on a 128-bit hash of the entity
+ * types, linked entity sets and authorized property types of the search, so that principals with different
+ * authorizations never share results. Every write to the index of an entity type bumps the version of that entity type,
+ * which makes results that searched it stale, including results of searches that were still running during the write.
+ * Writes that reach Elasticsearch through another node are only picked up once the result expires.
+ *
+ * Hits, misses and invalidations are recorded as `datastore.search.cache.*` meters.
+ */
+class SearchResultCache(
+        metricRegistry: MetricRegistry,
+        maximumSize: Long,
+        expireAfterWriteSeconds: Long
+) {
+    companion object {
+        const val DEFAULT_MAXIMUM_SIZE = 10_000L
+        const val DEFAULT_EXPIRE_AFTER_WRITE_SECONDS = 15L
+    }
+
+    private data class SearchKey(val constraints: String, val scope: HashCode)
+
+    private class CachedResult(
+            val result: EntityDataKeySearchResult,
+            val entityTypeVersions: Map<UUID, Long>
+    )
+
+    private val constraintsMapper = ObjectMappers.newJsonMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+
+    private val results: Cache<SearchKey, CachedResult> = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+            .build()
+
+    private val entityTypeVersions = ConcurrentHashMap<UUID, AtomicLong>()
+
+    private val hits = metricRegistry.meter(MetricRegistry.name(PREFIX, "hits"))
+    private val misses = metricRegistry.meter(MetricRegistry.name(PREFIX, "misses"))
+    private val invalidations = metricRegistry.meter(MetricRegistry.name(PREFIX, "invalidations"))
+
+    /**
+     * Returns the remembered result of the search, or runs [search] and remembers its result.
+     */
+    fun getOrSearch(
+            searchConstraints: SearchConstraints,
+            entityTypesByEntitySetId: Map<UUID, UUID>,
+            authorizedPropertyTypesByEntitySet: Map<UUID, Set<UUID>>,
+            linkingEntitySets: Map<UUID, Set<UUID>>,
+            search: Supplier<EntityDataKeySearchResult>
+    ): EntityDataKeySearchResult {
+        val key = try {
+            SearchKey(
+                    constraintsMapper.writeValueAsString(searchConstraints),
+                    Hashing.murmur3_128().newHasher()
+                            .putIds(entityTypesByEntitySetId.mapValues { setOf(it.value) })
+                            .putIds(linkingEntitySets)
+                            .putIds(authorizedPropertyTypesByEntitySet)
+                            .hash()
+            )
+        } catch (e: JsonProcessingException) {
+            logger.warn("Unable to build a cache key for search constraints. Searching without cache.", e)
+            return search.get()
+        }
+
+        val cached = results.getIfPresent(key)
+        if (cached != null && cached.entityTypeVersions.all { (entityTypeId, cachedVersion) ->
+                    version(entityTypeId) == cachedVersion
+                }) {
+            hits.mark()
+            return cached.result
+        }
+
+        misses.mark()
+        val versions = searchConstraints.entitySetIds
+                .mapNotNull { entityTypesByEntitySetId[it] }
+                .associateWith { version(it) }
+        val result = search.get()
+        results.put(key, CachedResult(result, versions))
+        return result
+    }
+
+    /**
+     * Makes the results of every search of the index of [entityTypeId] stale. Call this after writing to the index.
+     */
+    fun invalidateEntityType(entityTypeId: UUID) {
+        entityTypeVersions.computeIfAbsent(entityTypeId) { AtomicLong() }.incrementAndGet()
+        invalidations.mark()
+    }
+
+    private fun version(entityTypeId: UUID): Long = entityTypeVersions[entityTypeId]?.get() ?: 0L
+
+    private fun Hasher.putIds(idsById: Map<UUID, Set<UUID>>): Hasher {
+        putInt(idsById.size)
+        idsById.toSortedMap().forEach { (id, ids) ->
+            putUuid(id)
+            putInt(ids.size)
+            ids.sorted().forEach { putUuid(it) }
+        }
+        return this
+    }
+
+    private fun Hasher.putUuid(id: UUID): Hasher = putLong(id.mostSignificantBits).putLong(id.leastSignificantBits)
+}
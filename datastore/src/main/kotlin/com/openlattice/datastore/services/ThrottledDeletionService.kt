@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ *
+ */
+
+package com.openlattice.datastore.services
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.google.common.util.concurrent.RateLimiter
+import com.hazelcast.core.HazelcastInstance
+import com.openlattice.controllers.exceptions.BadRequestException
+import com.openlattice.datastore.data.AsyncJobState
+import com.openlattice.datastore.data.DeletionJobStatus
+import com.openlattice.edm.EntitySet
+import org.slf4j.LoggerFactory
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.ToIntFunction
+
+private val logger = LoggerFactory.getLogger(ThrottledDeletionService::class.java)
+
+/**
+ * Rough heap size of an entity key id held in a set by a queued job.
+ */
+private const val UUID_HEAP_BYTES = 64L
+
+/**
+ * Deletes large numbers of entities in the background, in batches of bounded size and at a bounded rate, so that
+ * deleting a huge entity set neither holds a request open for the whole delete nor saturates Postgres and
+ * Elasticsearch at the expense of live traffic.
+ *
+ * Each batch is handed to a callback, which is expected to delete the entities of the batch together with their index
+ * entries, so that index cleanup proceeds batch by batch at the same rate as the delete instead of in one bulk
+ * operation at the end. All jobs on a node share a budget of [rowsPerSecond] deleted entities per second and a job
+ * may ask for a lower rate of its own.
+ *
+ * Jobs run on an [AsyncJobRunner], with the security context of the request that submitted them.
+ */
+class ThrottledDeletionService(
+        hazelcast: HazelcastInstance,
+        mapper: ObjectMapper,
+        private val pager: EntityKeyIdPager,
+        poolSize: Int,
+        maxQueuedJobs: Int,
+        maxQueuedBytes: Long,
+        statusTtlSeconds: Long,
+        private val rowsPerSecond: Double
+) {
+    companion object {
+        const val JOB_STATUS_MAP = "datastore_deletion_jobs"
+        const val DEFAULT_POOL_SIZE = 2
+        const val DEFAULT_MAX_QUEUED_JOBS = 16
+        const val DEFAULT_MAX_QUEUED_BYTES = 256L * 1024 * 1024
+        const val DEFAULT_STATUS_TTL_SECONDS = 7 * 24 * 60 * 60L
+        const val DEFAULT_ROWS_PER_SECOND = 5_000.0
+        const val DEFAULT_BATCH_SIZE = 1_000
+    }
+
+    private val runner = AsyncJobRunner(
+            hazelcast,
+            mapper,
+            DeletionJobStatus::class.java,
+            "deletion",
+            JOB_STATUS_MAP,
+            poolSize,
+            maxQueuedJobs,
+            maxQueuedBytes,
+            statusTtlSeconds
+    )
+
+    private val nodeRateLimiter = RateLimiter.create(rowsPerSecond)
+
+    /**
+     * Deletes every entity of a normal entity set, walking its entity key ids in order one batch at a time.
+     *
+     * @param deleteBatch Deletes a batch of entities and returns the number of updates.
+     */
+    fun deleteAllEntities(
+            principalId: UUID,
+            entitySet: EntitySet,
+            batchSize: Int,
+            jobRowsPerSecond: Double?,
+            deleteBatch: ToIntFunction<List<UUID>>
+    ): UUID {
+        if (entitySet.isLinking) {
+            throw BadRequestException("Cannot delete entities of linking entity set ${entitySet.id}.")
+        }
+        checkBatchSize(batchSize)
+
+        return submit(principalId, entitySet.id, 0L, jobRowsPerSecond) { job ->
+            var page = pager.getPage(entitySet, EntityKeyIdCursor(null, null), batchSize)
+            while (page.ids.isNotEmpty()) {
+                job.deleteBatch(page.ids, deleteBatch)
+                page = page.nextCursor
+                        ?.let { pager.getPage(entitySet, EntityKeyIdCursor.decode(it), batchSize) }
+                        ?: EntityKeyIdPage(listOf(), null)
+            }
+        }
+    }
+
+    /**
+     * Deletes the given entities in batches.
+     *
+     * @param deleteBatch Deletes a batch of entities and returns the number of updates.
+     */
+    fun deleteEntities(
+            principalId: UUID,
+            entitySetId: UUID,
+            entityKeyIds: Set<UUID>,
+            batchSize: Int,
+            jobRowsPerSecond: Double?,
+            deleteBatch: ToIntFunction<List<UUID>>
+    ): UUID {
+        checkBatchSize(batchSize)
+
+        return submit(principalId, entitySetId, entityKeyIds.size * UUID_HEAP_BYTES, jobRowsPerSecond) { job ->
+            entityKeyIds.chunked(batchSize).forEach { job.deleteBatch(it, deleteBatch) }
+        }
+    }
+
+    fun getStatus(jobId: UUID): DeletionJobStatus? {
+        return runner.getStatus(jobId)
+    }
+
+    private fun submit(
+            principalId: UUID,
+            entitySetId: UUID,
+            payloadBytes: Long,
+            jobRowsPerSecond: Double?,
+            delete: (Job) -> Unit
+    ): UUID {
+        val jobId = runner.submit(Job(
+                UUID.randomUUID(),
+                principalId,
+                entitySetId,
+                payloadBytes,
+                jobRowsPerSecond?.let { RateLimiter.create(it.coerceIn(1.0, rowsPerSecond)) },
+                delete
+        ))
+        logger.info("Queued deletion job {} for entity set {}.", jobId, entitySetId)
+        return jobId
+    }
+
+    private fun checkBatchSize(batchSize: Int) {
+        if (batchSize !in 1..MAX_PAGE_SIZE) {
+            throw BadRequestException("Batch size must be between 1 and $MAX_PAGE_SIZE.")
+        }
+    }
+
+    private inner class Job(
+            id: UUID,
+            private val principalId: UUID,
+            private val entitySetId: UUID,
+            payloadBytes: Long,
+            private val jobRateLimiter: RateLimiter?,
+            private val delete: (Job) -> Unit
+    ) : AsyncJob<DeletionJobStatus>(id, payloadBytes) {
+        private val entitiesProcessed = AtomicLong()
+        private val numUpdates = AtomicLong()
+
+        fun deleteBatch(entityKeyIds: List<UUID>, deleteBatch: ToIntFunction<List<UUID>>) {
+            jobRateLimiter?.acquire(entityKeyIds.size)
+            nodeRateLimiter.acquire(entityKeyIds.size)
+
+            numUpdates.addAndGet(deleteBatch.applyAsInt(entityKeyIds).toLong())
+            entitiesProcessed.addAndGet(entityKeyIds.size.toLong())
+            publishProgress()
+        }
+
+        override fun run() {
+            delete(this)
+        }
+
+        override fun status(state: AsyncJobState, errors: List<String>): DeletionJobStatus {
+            return DeletionJobStatus(
+                    id,
+                    principalId,
+                    entitySetId,
+                    state,
+                    entitiesProcessed.get(),
+                    numUpdates.get(),
+                    errors
+            )
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.auditing;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.openlattice.authorization.AclKey;
+import com.openlattice.data.EntityDataKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public class CompactAssociationAuditBatchTest {
+    private static final String DESCRIPTION = "Create associations between entities using DataApi.createAssociations";
+
+    private final UUID           principal       = UUID.randomUUID();
+    private final OffsetDateTime timestamp       = OffsetDateTime.now();
+    private final UUID           edgeEntitySetId = UUID.randomUUID();
+
+    @Test
+    public void testExpandMatchesPerAssociationEvents() {
+        final UUID srcEntitySetId = UUID.randomUUID();
+        final UUID dstEntitySetId = UUID.randomUUID();
+        final int edges = 5;
+
+        final var batch = new CompactAssociationAuditBatch(
+                principal, DESCRIPTION, timestamp, edgeEntitySetId, edges );
+        final List<AuditableEvent> expected = new ArrayList<>( 3 * edges );
+        for ( int i = 0; i < edges; ++i ) {
+            // Alternate destination entity sets, since a single edge entity set can connect several.
+            final var src = new EntityDataKey( srcEntitySetId, UUID.randomUUID() );
+            final var dst = new EntityDataKey( i % 2 == 0 ? dstEntitySetId : srcEntitySetId, UUID.randomUUID() );
+            final var edge = new EntityDataKey( edgeEntitySetId, UUID.randomUUID() );
+
+            batch.add( src, dst, edge.getEntityKeyId() );
+            expected.addAll( perAssociationEvents( src, dst, edge ) );
+        }
+
+        Assert.assertEquals( 3 * edges, batch.getEventCount() );
+        Assert.assertEquals( expected, batch.expand() );
+    }
+
+    @Test
+    public void testPartiallyFilledBatch() {
+        final var batch = new CompactAssociationAuditBatch(
+                principal, DESCRIPTION, timestamp, edgeEntitySetId, 10 );
+        Assert.assertTrue( batch.expand().isEmpty() );
+
+        final var src = new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() );
+        final var dst = new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() );
+        final var edge = new EntityDataKey( edgeEntitySetId, UUID.randomUUID() );
+        batch.add( src, dst, edge.getEntityKeyId() );
+
+        Assert.assertEquals( 1, batch.getSize() );
+        Assert.assertEquals( perAssociationEvents( src, dst, edge ), batch.expand() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testFullBatch() {
+        final var batch = new CompactAssociationAuditBatch(
+                principal, DESCRIPTION, timestamp, edgeEntitySetId, 1 );
+        batch.add( new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() ),
+                new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() ),
+                UUID.randomUUID() );
+        batch.add( new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() ),
+                new EntityDataKey( UUID.randomUUID(), UUID.randomUUID() ),
+                UUID.randomUUID() );
+    }
+
+    /**
+     * The events DataController recorded for a single association before batches were introduced.
+     */
+    private List<AuditableEvent> perAssociationEvents( EntityDataKey src, EntityDataKey dst, EntityDataKey edge ) {
+        return List.of(
+                event( src, ImmutableMap.of( "association", edge, "neighbor", dst, "isSrc", true ) ),
+                event( dst, ImmutableMap.of( "association", edge, "neighbor", src, "isSrc", false ) ),
+                event( edge, ImmutableMap.of( "src", src, "dst", dst ) ) );
+    }
+
+    private AuditableEvent event( EntityDataKey entityDataKey, Map<String, Object> data ) {
+        return new AuditableEvent(
+                principal,
+                new AclKey( entityDataKey.getEntitySetId() ),
+                AuditEventType.ASSOCIATE_ENTITIES,
+                DESCRIPTION,
+                Optional.of( ImmutableSet.of( entityDataKey.getEntityKeyId() ) ),
+                data,
+                timestamp,
+                Optional.empty() );
+    }
+}
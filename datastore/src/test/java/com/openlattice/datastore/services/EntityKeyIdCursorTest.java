@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.services;
+
+import com.openlattice.controllers.exceptions.BadRequestException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.UUID;
+
+public class EntityKeyIdCursorTest {
+    private static final int MAX_SLICES = EntityKeyIdPagerKt.MAX_SLICES;
+
+    @Test
+    public void testRoundTrip() {
+        final UUID after = new UUID( 0x0123456789abcdefL, 0x0fedcba987654321L );
+        final UUID before = new UUID( 0xf123456789abcdefL, 0L );
+
+        assertRoundTrip( new EntityKeyIdCursor( null, null ) );
+        assertRoundTrip( new EntityKeyIdCursor( after, null ) );
+        assertRoundTrip( new EntityKeyIdCursor( null, before ) );
+        assertRoundTrip( new EntityKeyIdCursor( after, before ) );
+    }
+
+    @Test
+    public void testSlicesRoundTrip() {
+        for ( int slice = 0; slice < 7; ++slice ) {
+            assertRoundTrip( EntityKeyIdCursor.forSlice( slice, 7 ) );
+        }
+        for ( int slice = 0; slice < MAX_SLICES; ++slice ) {
+            assertRoundTrip( EntityKeyIdCursor.forSlice( slice, MAX_SLICES ) );
+        }
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testNotBase64() {
+        EntityKeyIdCursor.decode( "not a cursor!" );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testEmpty() {
+        EntityKeyIdCursor.decode( "" );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testTruncated() {
+        final String cursor = new EntityKeyIdCursor( UUID.randomUUID(), null ).encode();
+        EntityKeyIdCursor.decode( cursor.substring( 0, cursor.length() - 4 ) );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testTooLong() {
+        final byte[] bytes = decode( new EntityKeyIdCursor( UUID.randomUUID(), null ).encode() );
+        final byte[] longer = new byte[ bytes.length + 1 ];
+        System.arraycopy( bytes, 0, longer, 0, bytes.length );
+        EntityKeyIdCursor.decode( encode( longer ) );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testTamperedPresenceFlag() {
+        final byte[] bytes = decode( new EntityKeyIdCursor( UUID.randomUUID(), null ).encode() );
+        bytes[ 0 ] = 7;
+        EntityKeyIdCursor.decode( encode( bytes ) );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testTamperedAbsentId() {
+        final byte[] bytes = decode( new EntityKeyIdCursor( null, null ).encode() );
+        bytes[ 5 ] = 1;
+        EntityKeyIdCursor.decode( encode( bytes ) );
+    }
+
+    @Test( expected = BadRequestException.class )
+    public void testTamperedBounds() {
+        final UUID lower = new UUID( 1L, 0L );
+        final UUID upper = new UUID( -1L, 0L );
+        EntityKeyIdCursor.decode( new EntityKeyIdCursor( upper, lower ).encode() );
+    }
+
+    private static void assertRoundTrip( EntityKeyIdCursor cursor ) {
+        Assert.assertEquals( cursor, EntityKeyIdCursor.decode( cursor.encode() ) );
+    }
+
+    private static byte[] decode( String cursor ) {
+        return Base64.getUrlDecoder().decode( cursor );
+    }
+
+    private static String encode( byte[] bytes ) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( bytes );
+    }
+}
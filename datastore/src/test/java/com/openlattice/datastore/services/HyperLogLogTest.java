@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.services;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+public class HyperLogLogTest {
+    /**
+     * Three times the standard error of a sketch with 2^14 registers, so a correct sketch stays within it with
+     * overwhelming probability. Ids are generated from a fixed seed, so the test is deterministic anyway.
+     */
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt( 1 << 14 );
+
+    private final Random random = new Random( 42 );
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals( 0, new HyperLogLog().estimate() );
+    }
+
+    @Test
+    public void testEstimateWithinBound() {
+        for ( int cardinality : new int[] { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 } ) {
+            final var sketch = new HyperLogLog();
+            randomIds( cardinality ).forEach( sketch::add );
+            assertWithinBound( cardinality, sketch.estimate() );
+        }
+    }
+
+    @Test
+    public void testDuplicatesDontCount() {
+        final var ids = randomIds( 10_000 );
+        final var sketch = new HyperLogLog();
+        ids.forEach( sketch::add );
+        final long estimate = sketch.estimate();
+
+        ids.forEach( sketch::add );
+        Assert.assertEquals( estimate, sketch.estimate() );
+    }
+
+    @Test
+    public void testMergeEqualsSketchOfUnion() {
+        final var a = randomIds( 50_000 );
+        final var b = randomIds( 30_000 );
+        // Overlap the two sets, so the union is smaller than the sum of their sizes.
+        final var shared = a.subList( 0, 20_000 );
+
+        final var sketchA = new HyperLogLog();
+        a.forEach( sketchA::add );
+        final var sketchB = new HyperLogLog();
+        b.forEach( sketchB::add );
+        shared.forEach( sketchB::add );
+        final var union = new HyperLogLog();
+        a.forEach( union::add );
+        b.forEach( union::add );
+
+        sketchA.merge( sketchB );
+        Assert.assertArrayEquals( union.toByteArray(), sketchA.toByteArray() );
+        assertWithinBound( 80_000, sketchA.estimate() );
+    }
+
+    @Test
+    public void testMergeIsIdempotentAndCommutative() {
+        final var sketchA = new HyperLogLog();
+        randomIds( 5_000 ).forEach( sketchA::add );
+        final var sketchB = new HyperLogLog();
+        randomIds( 7_000 ).forEach( sketchB::add );
+
+        final var ab = new HyperLogLog( sketchA.toByteArray() );
+        ab.merge( sketchB );
+        final var ba = new HyperLogLog( sketchB.toByteArray() );
+        ba.merge( sketchA );
+        Assert.assertArrayEquals( ab.toByteArray(), ba.toByteArray() );
+
+        final byte[] merged = ab.toByteArray();
+        ab.merge( sketchA );
+        ab.merge( ab );
+        Assert.assertArrayEquals( merged, ab.toByteArray() );
+    }
+
+    @Test
+    public void testMergeWithEmpty() {
+        final var sketch = new HyperLogLog();
+        randomIds( 1_000 ).forEach( sketch::add );
+        final byte[] registers = sketch.toByteArray();
+
+        sketch.merge( new HyperLogLog() );
+        Assert.assertArrayEquals( registers, sketch.toByteArray() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testWrongNumberOfRegisters() {
+        new HyperLogLog( new byte[ 16 ] );
+    }
+
+    private List<UUID> randomIds( int count ) {
+        final List<UUID> ids = new ArrayList<>( count );
+        for ( int i = 0; i < count; ++i ) {
+            ids.add( new UUID( random.nextLong(), random.nextLong() ) );
+        }
+        return ids;
+    }
+
+    private static void assertWithinBound( long cardinality, long estimate ) {
+        final double error = Math.abs( estimate - cardinality ) / (double) cardinality;
+        Assert.assertTrue(
+                "Estimate " + estimate + " of " + cardinality + " ids is off by " + error,
+                error <= MAX_RELATIVE_ERROR );
+    }
+}
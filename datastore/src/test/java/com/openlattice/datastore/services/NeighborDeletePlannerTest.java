@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2020. OpenLattice, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * You can contact the owner of the copyright at support@openlattice.com
+ *
+ */
+
+package com.openlattice.datastore.services;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.openlattice.authorization.AclKey;
+import com.openlattice.authorization.AuthorizationManager;
+import com.openlattice.authorization.Permission;
+import com.openlattice.authorization.Principal;
+import com.openlattice.authorization.PrincipalType;
+import com.openlattice.controllers.exceptions.ForbiddenException;
+import com.openlattice.data.WriteEvent;
+import com.openlattice.data.requests.NeighborEntityIds;
+import com.openlattice.datastore.data.NeighborDeletePlan;
+import com.openlattice.search.SearchService;
+import com.openlattice.search.requests.EntityNeighborsFilter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The entity of the filter is the src of one edge and the dst of another, and both of its neighbors are in the same
+ * entity set, so only the direction of the edge tells them apart.
+ */
+public class NeighborDeletePlannerTest {
+    private static final Set<Principal> PRINCIPALS = Set.of( new Principal( PrincipalType.USER, "user" ) );
+
+    private final UUID entitySetId            = UUID.randomUUID();
+    private final UUID neighborEntitySetId    = UUID.randomUUID();
+    private final UUID associationEntitySetId = UUID.randomUUID();
+
+    private final UUID entityKeyId    = UUID.randomUUID();
+    private final UUID dstNeighborId  = UUID.randomUUID();
+    private final UUID srcNeighborId  = UUID.randomUUID();
+    private final UUID outgoingEdgeId = UUID.randomUUID();
+    private final UUID incomingEdgeId = UUID.randomUUID();
+
+    private final Set<AclKey> unreadable = new HashSet<>();
+
+    private NeighborDeletePlanner planner;
+
+    @Before
+    public void setUp() {
+        final SetMultimap<UUID, NeighborEntityIds> neighborsByEntitySet = HashMultimap.create();
+        // The entity is the src of the outgoing edge, so its neighbor there is a dst.
+        neighborsByEntitySet.put( neighborEntitySetId, new NeighborEntityIds( outgoingEdgeId, dstNeighborId, true ) );
+        neighborsByEntitySet.put( neighborEntitySetId, new NeighborEntityIds( incomingEdgeId, srcNeighborId, false ) );
+
+        final SearchService searchService = Mockito.mock( SearchService.class );
+        Mockito.when( searchService.executeEntityNeighborIdsSearch(
+                Mockito.any(), Mockito.any(), Mockito.any() ) )
+                .thenReturn( Map.of( entityKeyId, Map.of( associationEntitySetId, neighborsByEntitySet ) ) );
+
+        final AuthorizationManager authorizations = Mockito.mock( AuthorizationManager.class );
+        Mockito.when( authorizations.authorize( Mockito.any(), Mockito.any() ) ).thenAnswer( invocation -> {
+            @SuppressWarnings( "unchecked" )
+            final Map<AclKey, EnumSet<Permission>> requests =
+                    (Map<AclKey, EnumSet<Permission>>) invocation.getArguments()[ 0 ];
+            final Map<AclKey, EnumMap<Permission, Boolean>> result = new HashMap<>();
+            requests.forEach( ( aclKey, permissions ) -> {
+                final var permissionMap = new EnumMap<Permission, Boolean>( Permission.class );
+                permissions.forEach( permission -> permissionMap.put( permission, !unreadable.contains( aclKey ) ) );
+                result.put( aclKey, permissionMap );
+            } );
+            return result;
+        } );
+
+        planner = new NeighborDeletePlanner( searchService, authorizations );
+    }
+
+    @Test
+    public void testSrcFilterOnlyDeletesSrcNeighbors() {
+        final var plan = planner.plan( entitySetId, filter( Set.of( neighborEntitySetId ), null ), PRINCIPALS );
+
+        Assert.assertEquals( Map.of( neighborEntitySetId, Set.of( srcNeighborId ) ), plan.getNeighborEntityKeyIds() );
+        assertAllAssociations( plan );
+    }
+
+    @Test
+    public void testDstFilterOnlyDeletesDstNeighbors() {
+        final var plan = planner.plan( entitySetId, filter( null, Set.of( neighborEntitySetId ) ), PRINCIPALS );
+
+        Assert.assertEquals( Map.of( neighborEntitySetId, Set.of( dstNeighborId ) ), plan.getNeighborEntityKeyIds() );
+        assertAllAssociations( plan );
+    }
+
+    @Test
+    public void testNoNeighborFilter() {
+        final var plan = planner.plan( entitySetId, filter( null, null ), PRINCIPALS );
+
+        Assert.assertTrue( plan.getNeighborEntityKeyIds().isEmpty() );
+        assertAllAssociations( plan );
+        Assert.assertEquals( 3, plan.summarize( true, null ).getTotal() );
+    }
+
+    @Test
+    public void testExecuteDeletesAssociationsThenNeighborsThenEntities() {
+        final var plan = planner.plan( entitySetId, filter( Set.of( neighborEntitySetId ), null ), PRINCIPALS );
+
+        final List<UUID> deletedEntitySetIds = new ArrayList<>();
+        final int numUpdates = planner.execute( plan, ( deleteEntitySetId, entityKeyIds ) -> {
+            deletedEntitySetIds.add( deleteEntitySetId );
+            return new WriteEvent( 0L, entityKeyIds.size() );
+        } );
+
+        Assert.assertEquals( List.of( associationEntitySetId, neighborEntitySetId, entitySetId ), deletedEntitySetIds );
+        Assert.assertEquals( 4, numUpdates );
+    }
+
+    @Test
+    public void testUnreadableNeighborEntitySetIsSkipped() {
+        unreadable.add( new AclKey( neighborEntitySetId ) );
+        final var plan = planner.plan( entitySetId, filter( null, Set.of( neighborEntitySetId ) ), PRINCIPALS );
+
+        Assert.assertEquals( Set.of( neighborEntitySetId ), plan.getSkippedEntitySetIds() );
+        Assert.assertEquals( Set.of( neighborEntitySetId ), plan.summarize( true, null ).getSkippedEntitySetIds() );
+    }
+
+    @Test( expected = ForbiddenException.class )
+    public void testPlanWithSkippedEntitySetsIsNotExecuted() {
+        unreadable.add( new AclKey( neighborEntitySetId ) );
+        final var plan = planner.plan( entitySetId, filter( Set.of( neighborEntitySetId ), null ), PRINCIPALS );
+
+        planner.execute( plan, ( deleteEntitySetId, entityKeyIds ) -> {
+            throw new AssertionError( "Nothing should be deleted." );
+        } );
+    }
+
+    private EntityNeighborsFilter filter( Set<UUID> srcEntitySetIds, Set<UUID> dstEntitySetIds ) {
+        return new EntityNeighborsFilter(
+                Set.of( entityKeyId ),
+                Optional.ofNullable( srcEntitySetIds ),
+                Optional.ofNullable( dstEntitySetIds ),
+                Optional.empty() );
+    }
+
+    private void assertAllAssociations( NeighborDeletePlan plan ) {
+        Assert.assertEquals(
+                Map.of( associationEntitySetId, Set.of( outgoingEdgeId, incomingEdgeId ) ),
+                plan.getAssociationEntityKeyIds() );
+    }
+}